@@ -0,0 +1,65 @@
+package ca.robertgleason.ecommbe.benchmark;
+
+import ca.robertgleason.ecommbe.audit.AuditAction;
+import ca.robertgleason.ecommbe.audit.AuditEntity;
+import ca.robertgleason.ecommbe.audit.AuditLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What an admin request pays to be audited: {@link AuditLog#record} from several threads while the
+ * writer thread appends and rotates segments in the background. Check {@code audit.dropped} is
+ * zero in the registry if the numbers look too good.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuditLogBenchmark {
+
+    private Path directory;
+    private AuditLog auditLog;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("audit-benchmark");
+        auditLog = new AuditLog(new SimpleMeterRegistry(), true, directory.toString(), DataSize.ofMegabytes(64),
+                1 << 20, Duration.ofSeconds(1));
+        auditLog.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException, IOException {
+        auditLog.stop();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void record() {
+        auditLog.record(AuditAction.UPDATE, AuditEntity.PRODUCT, ThreadLocalRandom.current().nextLong(1_000_000));
+    }
+}
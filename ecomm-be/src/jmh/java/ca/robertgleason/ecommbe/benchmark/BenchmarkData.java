@@ -0,0 +1,53 @@
+package ca.robertgleason.ecommbe.benchmark;
+
+import ca.robertgleason.ecommbe.model.Category;
+import ca.robertgleason.ecommbe.model.Product;
+import ca.robertgleason.ecommbe.payload.ProductDTO;
+import ca.robertgleason.ecommbe.payload.ProductResponse;
+import ca.robertgleason.ecommbe.service.ImageVariant;
+import ca.robertgleason.ecommbe.utilties.PriceUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static List<Product> products(int count) {
+        Category category = new Category(1L, "Electronics");
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double price = 10 + (i % 500);
+            double discount = i % 40;
+            Product product = new Product();
+            product.setProductId((long) i + 1);
+            product.setProductName("Product " + i);
+            product.setProductDescription("Description of product number " + i);
+            product.setImage("3f/a2/" + i + ".png");
+            product.setQuantity(i % 100);
+            product.setPrice(price);
+            product.setDiscount(discount);
+            product.setSpecialPrice(PriceUtils.specialPrice(price, discount));
+            product.setCategory(category);
+            products.add(product);
+        }
+        return products;
+    }
+
+    static ProductResponse productResponse(int count) {
+        List<ProductDTO> content = new ArrayList<>(count);
+        for (Product product : products(count)) {
+            Map<String, String> variants = new LinkedHashMap<>();
+            for (ImageVariant variant : ImageVariant.values()) {
+                variants.put(variant.getKey(), variant.fileNameFor(product.getImage()));
+            }
+            content.add(new ProductDTO(product.getProductId(), product.getProductName(), product.getImage(),
+                    product.getQuantity(), product.getPrice(), product.getDiscount(), product.getSpecialPrice(), variants));
+        }
+        return new ProductResponse(content, 0, count, 10_000L, 10_000 / count, false);
+    }
+}
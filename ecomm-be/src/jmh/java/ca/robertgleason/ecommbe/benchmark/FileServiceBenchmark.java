@@ -0,0 +1,61 @@
+package ca.robertgleason.ecommbe.benchmark;
+
+import ca.robertgleason.ecommbe.service.FileServiceImpl;
+import ca.robertgleason.ecommbe.service.ImageCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileServiceBenchmark {
+
+    private FileServiceImpl fileService;
+    private MockMultipartFile image;
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        fileService = new FileServiceImpl(new ImageCache(64L << 20, 1L << 20, new SimpleMeterRegistry()), 5L << 20);
+        byte[] bytes = new byte[200 * 1024];
+        new Random(42).nextBytes(bytes);
+        image = new MockMultipartFile("image", "product.png", "image/png", bytes);
+    }
+
+    @Setup(Level.Iteration)
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("ecomm-images-");
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteDirectory() throws IOException {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public String uploadImage() throws IOException {
+        return fileService.uploadImage(directory.toString(), image);
+    }
+}
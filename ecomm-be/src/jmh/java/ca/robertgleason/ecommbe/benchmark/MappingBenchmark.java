@@ -0,0 +1,56 @@
+package ca.robertgleason.ecommbe.benchmark;
+
+import ca.robertgleason.ecommbe.model.Product;
+import ca.robertgleason.ecommbe.payload.ProductDTO;
+import ca.robertgleason.ecommbe.utilties.MappingUtils;
+import ca.robertgleason.ecommbe.utilties.PriceUtils;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MappingBenchmark {
+
+    @Param({"50", "500", "5000"})
+    private int size;
+
+    private MappingUtils mappingUtils;
+    private List<Product> products;
+    private double price;
+    private double discount;
+
+    @Setup
+    public void setup() {
+        mappingUtils = new MappingUtils(new ModelMapper());
+        products = BenchmarkData.products(size);
+        price = 149.99;
+        discount = 15;
+    }
+
+    @Benchmark
+    public List<ProductDTO> mapList() {
+        return mappingUtils.mapList(products, ProductDTO.class);
+    }
+
+    @Benchmark
+    public double specialPrice() {
+        return PriceUtils.specialPrice(price, discount);
+    }
+}
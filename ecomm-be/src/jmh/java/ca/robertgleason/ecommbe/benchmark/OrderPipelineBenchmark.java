@@ -0,0 +1,173 @@
+package ca.robertgleason.ecommbe.benchmark;
+
+import ca.robertgleason.ecommbe.service.OrderBatchPlanner;
+import ca.robertgleason.ecommbe.service.OrderPipeline;
+import ca.robertgleason.ecommbe.service.SellerStatsStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order placement under contention: {@code hotProducts} is the number of products all orders
+ * compete for, so 1 models a flash sale on a single item. {@code groupCommit} goes through
+ * {@link OrderPipeline}; {@code perOrderTransaction} is the naive baseline that locks, decrements
+ * and inserts in its own transaction per order. Both keep the seller's stock totals current, and
+ * all products belong to one seller, so that row is as hot as the hottest product. {@code plan}
+ * measures the planner alone.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderPipelineBenchmark {
+
+    private static final int LINES_PER_ORDER = 3;
+
+    @Param({"1", "100"})
+    private int hotProducts;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private OrderPipeline pipeline;
+    private List<List<OrderBatchPlanner.Line>> planBatch;
+    private Map<Long, Integer> planStock;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:orders_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=30000", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table products (product_id bigint primary key, product_name varchar(255), " +
+                "quantity int, special_price double, price double, seller_id bigint)");
+        jdbcTemplate.execute("create table seller_stats (seller_id bigint primary key, product_count bigint, total_stock bigint, " +
+                "inventory_value double, reconciled_at timestamp)");
+        jdbcTemplate.execute("create table orders (order_id bigint auto_increment primary key, user_id bigint, " +
+                "order_date timestamp, total_amount double, order_status varchar(255))");
+        jdbcTemplate.execute("create table order_items (order_item_id bigint auto_increment primary key, order_id bigint, " +
+                "product_id bigint, product_name varchar(255), quantity int, unit_price double)");
+        for (long id = 1; id <= hotProducts; id++) {
+            jdbcTemplate.update("insert into products values (?, ?, 0, 9.99, 12.99, 1)", id, "Product " + id);
+        }
+        jdbcTemplate.update("insert into seller_stats values (1, ?, 0, 0, null)", hotProducts);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SellerStatsStore sellerStatsStore = new SellerStatsStore(jdbcTemplate, transactionManager, meterRegistry);
+        pipeline = new OrderPipeline(jdbcTemplate, transactionManager, meterRegistry, sellerStatsStore, 100_000, 64, Duration.ofMillis(2));
+        pipeline.start();
+
+        SplittableRandom random = new SplittableRandom(42);
+        planBatch = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            planBatch.add(randomLines(random.nextLong()));
+        }
+        planStock = new HashMap<>();
+        for (long id = 1; id <= hotProducts; id++) {
+            planStock.put(id, 100);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void restock() {
+        // enough stock that no line is rejected; rejections would make the two strategies do different work
+        jdbcTemplate.update("update products set quantity = ?", Integer.MAX_VALUE / 2);
+        jdbcTemplate.update("delete from order_items");
+        jdbcTemplate.update("delete from orders");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        pipeline.stop();
+        jdbcTemplate.execute("shutdown");
+    }
+
+    @Benchmark
+    @Threads(16)
+    public OrderPipeline.PlacedOrder groupCommit() {
+        return pipeline.submit(1L, randomLines(ThreadLocalRandom.current().nextLong())).join();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Long perOrderTransaction() {
+        List<OrderBatchPlanner.Line> lines = randomLines(ThreadLocalRandom.current().nextLong());
+        return transactionTemplate.execute(status -> {
+            double total = 0;
+            // lock in id order, as any per-order implementation must, to avoid deadlocks between orders
+            for (OrderBatchPlanner.Line line : lines.stream().sorted((a, b) -> Long.compare(a.productId(), b.productId())).toList()) {
+                Map<String, Object> row = jdbcTemplate.queryForMap(
+                        "select quantity, special_price from products where product_id = ? for update", line.productId());
+                if ((Integer) row.get("QUANTITY") < line.quantity()) {
+                    continue;
+                }
+                jdbcTemplate.update("update products set quantity = quantity - ? where product_id = ?", line.quantity(), line.productId());
+                jdbcTemplate.update("update seller_stats set total_stock = total_stock - ?, inventory_value = inventory_value - ? " +
+                        "where seller_id = 1", line.quantity(), line.quantity() * (Double) row.get("SPECIAL_PRICE"));
+                total += line.quantity() * (Double) row.get("SPECIAL_PRICE");
+            }
+            double orderTotal = total;
+            KeyHolder keys = new GeneratedKeyHolder();
+            jdbcTemplate.update(con -> {
+                PreparedStatement ps = con.prepareStatement("insert into orders (user_id, order_date, total_amount, order_status) " +
+                        "values (1, current_timestamp, ?, 'ACCEPTED')", new String[]{"order_id"});
+                ps.setDouble(1, orderTotal);
+                return ps;
+            }, keys);
+            Long orderId = keys.getKey().longValue();
+            for (OrderBatchPlanner.Line line : lines) {
+                jdbcTemplate.update("insert into order_items (order_id, product_id, quantity, unit_price) values (?, ?, ?, 9.99)",
+                        orderId, line.productId(), line.quantity());
+            }
+            return orderId;
+        });
+    }
+
+    @Benchmark
+    @Threads(1)
+    public OrderBatchPlanner.Plan plan() {
+        return OrderBatchPlanner.plan(planBatch, planStock);
+    }
+
+    private List<OrderBatchPlanner.Line> randomLines(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<OrderBatchPlanner.Line> lines = new ArrayList<>(LINES_PER_ORDER);
+        for (int i = 0; i < LINES_PER_ORDER; i++) {
+            long productId = 1 + random.nextInt(hotProducts);
+            if (lines.stream().noneMatch(line -> line.productId() == productId)) {
+                lines.add(new OrderBatchPlanner.Line(productId, 1 + random.nextInt(3)));
+            }
+        }
+        return lines;
+    }
+}
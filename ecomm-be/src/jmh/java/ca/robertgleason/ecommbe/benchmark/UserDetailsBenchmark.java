@@ -0,0 +1,42 @@
+package ca.robertgleason.ecommbe.benchmark;
+
+import ca.robertgleason.ecommbe.model.AppRole;
+import ca.robertgleason.ecommbe.model.Role;
+import ca.robertgleason.ecommbe.model.User;
+import ca.robertgleason.ecommbe.security.services.UserDetailsImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserDetailsBenchmark {
+
+    private User admin;
+
+    @Setup
+    public void setup() {
+        admin = new User("admin", "admin@example.com", "$2a$10$abcdefghijklmnopqrstuv");
+        admin.setUserId(3L);
+        admin.setRoles(Set.of(new Role(1L, AppRole.ROLE_USER), new Role(2L, AppRole.ROLE_SELLER), new Role(3L, AppRole.ROLE_ADMIN)));
+    }
+
+    @Benchmark
+    public UserDetailsImpl build() {
+        return UserDetailsImpl.build(admin);
+    }
+}
@@ -0,0 +1,85 @@
+package ca.robertgleason.ecommbe.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-endpoint latency histograms (microsecond resolution, up to one minute) and error counts.
+ */
+class LatencyReport {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    void record(String endpoint, long latencyNanos, boolean success) {
+        long micros = Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_TRACKABLE_MICROS);
+        histograms.computeIfAbsent(endpoint, k -> new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3))
+                .recordValue(micros);
+        if (!success) {
+            errors.computeIfAbsent(endpoint, k -> new LongAdder()).increment();
+        }
+    }
+
+    void print(double durationSeconds) {
+        System.out.printf("%n%-28s %10s %10s %8s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "req/s", "errors", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        histograms.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(entry -> {
+            Histogram h = entry.getValue();
+            System.out.printf("%-28s %10d %10.1f %8d %10.2f %10.2f %10.2f %10.2f%n",
+                    entry.getKey(), h.getTotalCount(), h.getTotalCount() / durationSeconds, errorCount(entry.getKey()),
+                    millis(h.getValueAtPercentile(50)), millis(h.getValueAtPercentile(99)),
+                    millis(h.getValueAtPercentile(99.9)), millis(h.getMaxValue()));
+        });
+    }
+
+    void writeJson(Path output, double durationSeconds, Map<String, String> settings) throws IOException {
+        StringBuilder json = new StringBuilder("{\n  \"durationSeconds\": ").append(durationSeconds).append(",\n");
+        json.append("  \"settings\": {");
+        settings.forEach((key, value) -> json.append('"').append(key).append("\": \"").append(value).append("\", "));
+        if (!settings.isEmpty()) {
+            json.setLength(json.length() - 2);
+        }
+        json.append("},\n  \"endpoints\": {");
+        String separator = "\n";
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            Histogram h = entry.getValue();
+            json.append(separator).append("    \"").append(entry.getKey()).append("\": {")
+                    .append("\"requests\": ").append(h.getTotalCount())
+                    .append(", \"throughput\": ").append(h.getTotalCount() / durationSeconds)
+                    .append(", \"errors\": ").append(errorCount(entry.getKey()))
+                    .append(", \"p50Ms\": ").append(millis(h.getValueAtPercentile(50)))
+                    .append(", \"p99Ms\": ").append(millis(h.getValueAtPercentile(99)))
+                    .append(", \"p999Ms\": ").append(millis(h.getValueAtPercentile(99.9)))
+                    .append(", \"maxMs\": ").append(millis(h.getMaxValue()))
+                    .append('}');
+            separator = ",\n";
+        }
+        json.append("\n  }\n}\n");
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        Files.writeString(output, json);
+    }
+
+    void reset() {
+        histograms.clear();
+        errors.clear();
+    }
+
+    private long errorCount(String endpoint) {
+        LongAdder count = errors.get(endpoint);
+        return count == null ? 0 : count.sum();
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,243 @@
+package ca.robertgleason.ecommbe.loadtest;
+
+import ca.robertgleason.ecommbe.EcommBeApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the application on an in-memory H2 database, seeds a catalog through the admin API (or
+ * with the synthetic data generator when {@code loadtest.generated-products} is set) and
+ * drives a mixed workload through the real HTTP stack:
+ * <ul>
+ *     <li>browse: product listing pages and category pages</li>
+ *     <li>search: keyword search</li>
+ *     <li>sign-in: BCrypt-backed authentication</li>
+ *     <li>admin: product updates</li>
+ * </ul>
+ * Settings are system properties prefixed with {@code loadtest.}; {@code loadtest.profiles} selects
+ * application profiles (e.g. {@code virtual}) so runs can be compared against a baseline, and
+ * {@code loadtest.request-log=true} keeps the per-request access line on to measure its cost.
+ */
+public class LoadTestMain {
+
+    private static final String[] KEYWORDS = {"phone", "laptop", "chair", "lamp", "shirt", "book"};
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private final LatencyReport report = new LatencyReport();
+    private final String baseUrl;
+    private final String cookieName;
+
+    private String userCookie;
+    private String adminCookie;
+    private int categoryCount;
+    private int productCount;
+
+    LoadTestMain(String baseUrl, String cookieName) {
+        this.baseUrl = baseUrl;
+        this.cookieName = cookieName;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int durationSeconds = Integer.getInteger("loadtest.duration", 60);
+        int warmupSeconds = Integer.getInteger("loadtest.warmup", 15);
+        int concurrency = Integer.getInteger("loadtest.concurrency", 64);
+        int categories = Integer.getInteger("loadtest.categories", 20);
+        int productsPerCategory = Integer.getInteger("loadtest.products-per-category", 50);
+        // > 0 seeds through SyntheticDataGenerator instead of the admin API
+        int generatedProducts = Integer.getInteger("loadtest.generated-products", 0);
+        String profiles = System.getProperty("loadtest.profiles", "");
+        Path output = Path.of(System.getProperty("loadtest.output", "target/loadtest-result.json"));
+
+        SpringApplication application = new SpringApplication(EcommBeApplication.class);
+        application.setAdditionalProfiles(profiles.isBlank() ? new String[0] : profiles.split(","));
+        List<String> arguments = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN"));
+        if (!Boolean.getBoolean("loadtest.request-log")) {
+            arguments.add("--logging.level.ecomm.request=WARN");
+        }
+        if (generatedProducts > 0) {
+            arguments.add("--app.datagen.enabled=true");
+            arguments.add("--app.datagen.categories=" + categories);
+            arguments.add("--app.datagen.products=" + generatedProducts);
+            arguments.add("--app.datagen.users=" + Math.max(1000, generatedProducts / 100));
+        }
+        ConfigurableApplicationContext context = application.run(arguments.toArray(new String[0]));
+        try {
+            String port = context.getEnvironment().getProperty("local.server.port");
+            String cookieName = context.getEnvironment().getProperty("spring.app.jwtCookieName");
+            LoadTestMain loadTest = new LoadTestMain("http://localhost:" + port, cookieName);
+            loadTest.signIn();
+            if (generatedProducts > 0) {
+                loadTest.categoryCount = categories;
+                loadTest.productCount = generatedProducts;
+            } else {
+                loadTest.seed(categories, productsPerCategory);
+            }
+
+            System.out.printf("Warming up for %ds with %d workers%n", warmupSeconds, concurrency);
+            loadTest.run(concurrency, warmupSeconds);
+            loadTest.report.reset();
+
+            System.out.printf("Measuring for %ds with %d workers (profiles: %s)%n", durationSeconds, concurrency,
+                    profiles.isBlank() ? "default" : profiles);
+            loadTest.run(concurrency, durationSeconds);
+            loadTest.report.print(durationSeconds);
+
+            Map<String, String> settings = new LinkedHashMap<>();
+            settings.put("profiles", profiles);
+            settings.put("concurrency", String.valueOf(concurrency));
+            settings.put("products", String.valueOf(loadTest.productCount));
+            loadTest.report.writeJson(output, durationSeconds, settings);
+            System.out.println("Results written to " + output.toAbsolutePath());
+        } finally {
+            context.close();
+        }
+    }
+
+    private void signIn() throws Exception {
+        userCookie = login("user1", "password1");
+        adminCookie = login("admin", "adminPass");
+    }
+
+    private String login(String username, String password) throws Exception {
+        HttpResponse<String> response = client.send(post("/api/auth/signin",
+                "{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}", null), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Sign-in failed for " + username + ": " + response.statusCode());
+        }
+        return response.headers().allValues("Set-Cookie").stream()
+                .filter(cookie -> cookie.startsWith(cookieName + "="))
+                .map(cookie -> cookie.substring(0, cookie.indexOf(';')))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No JWT cookie returned for " + username));
+    }
+
+    private void seed(int categories, int productsPerCategory) throws Exception {
+        System.out.printf("Seeding %d categories with %d products each%n", categories, productsPerCategory);
+        for (int c = 1; c <= categories; c++) {
+            send(post("/api/public/categories", "{\"categoryName\":\"Category " + c + "\"}", adminCookie));
+        }
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> inserts = new ArrayList<>();
+            for (int c = 1; c <= categories; c++) {
+                for (int p = 0; p < productsPerCategory; p++) {
+                    int categoryId = c;
+                    int number = (c - 1) * productsPerCategory + p;
+                    inserts.add(executor.submit(() -> send(post("/api/admin/categories/" + categoryId + "/product",
+                            productJson(number, new SplittableRandom(number)), adminCookie))));
+                }
+            }
+            for (Future<?> insert : inserts) {
+                insert.get();
+            }
+        }
+        categoryCount = categories;
+        productCount = categories * productsPerCategory;
+    }
+
+    private void run(int concurrency, int seconds) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                long seed = i;
+                workers.submit(() -> {
+                    SplittableRandom random = new SplittableRandom(seed);
+                    while (System.nanoTime() < deadline) {
+                        step(random);
+                    }
+                    return null;
+                });
+            }
+        }
+    }
+
+    private void step(SplittableRandom random) {
+        int roll = random.nextInt(100);
+        if (roll < 45) {
+            timed("browse products", get("/api/public/products?pageNumber=" + random.nextInt(5), userCookie));
+        } else if (roll < 60) {
+            timed("browse category", get("/api/public/categories/" + (1 + random.nextInt(categoryCount)) + "/products", userCookie));
+        } else if (roll < 70) {
+            timed("browse categories", get("/api/public/categories", userCookie));
+        } else if (roll < 90) {
+            timed("keyword search", get("/api/public/products/keyword/" + KEYWORDS[random.nextInt(KEYWORDS.length)], userCookie));
+        } else if (roll < 97) {
+            timed("sign-in", post("/api/auth/signin", "{\"username\":\"user1\",\"password\":\"password1\"}", null));
+        } else {
+            int productId = 1 + random.nextInt(productCount);
+            timed("admin update", put("/api/admin/products/" + productId, productJson(productId - 1, random), adminCookie));
+        }
+    }
+
+    private void timed(String endpoint, HttpRequest request) {
+        long start = System.nanoTime();
+        boolean success;
+        try {
+            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            // keyword search answers 302
+            success = status < 400;
+        } catch (Exception e) {
+            success = false;
+        }
+        report.record(endpoint, System.nanoTime() - start, success);
+    }
+
+    private Object send(HttpRequest request) throws Exception {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException(request.uri() + " failed: " + response.statusCode() + " " + response.body());
+        }
+        return response;
+    }
+
+    private static String productJson(int number, SplittableRandom random) {
+        String keyword = KEYWORDS[number % KEYWORDS.length];
+        double price = 5 + random.nextInt(2000);
+        return "{\"productName\":\"" + keyword + " " + number + "\",\"quantity\":" + (10 + random.nextInt(500))
+                + ",\"price\":" + price + ",\"discount\":" + random.nextInt(50) + "}";
+    }
+
+    private HttpRequest get(String path, String cookie) {
+        return builder(path, cookie).GET().build();
+    }
+
+    private HttpRequest post(String path, String json, String cookie) {
+        return builder(path, cookie).header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json)).build();
+    }
+
+    private HttpRequest put(String path, String json, String cookie) {
+        return builder(path, cookie).header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(json)).build();
+    }
+
+    private HttpRequest.Builder builder(String path, String cookie) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30));
+        if (cookie != null) {
+            builder.header("Cookie", cookie);
+        }
+        return builder;
+    }
+}
@@ -0,0 +1,11 @@
+package ca.robertgleason.ecommbe.audit;
+
+/**
+ * Stored as its ordinal in one byte; only append new values.
+ */
+public enum AuditAction {
+    CREATE,
+    UPDATE,
+    DELETE,
+    IMAGE_UPDATE
+}
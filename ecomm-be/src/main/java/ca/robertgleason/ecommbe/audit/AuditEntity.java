@@ -0,0 +1,9 @@
+package ca.robertgleason.ecommbe.audit;
+
+/**
+ * Stored as its ordinal in one byte; only append new values.
+ */
+public enum AuditEntity {
+    PRODUCT,
+    CATEGORY
+}
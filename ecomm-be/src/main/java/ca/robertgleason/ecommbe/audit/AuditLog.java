@@ -0,0 +1,181 @@
+package ca.robertgleason.ecommbe.audit;
+
+import ca.robertgleason.ecommbe.security.services.UserDetailsImpl;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Audit trail of catalog mutations, kept off the request path. {@link #record} only captures the
+ * actor and appends to a lock-free queue; one writer thread drains it into memory-mapped segments
+ * (see {@link AuditLogFormat}) and forces them to disk every {@code app.audit.fsync-interval}.
+ * A crash loses at most that interval, and records still queued.
+ * <p>
+ * Inside a transaction the record is queued on commit, so rolled-back changes are never audited.
+ * When the queue holds {@code app.audit.queue-capacity} records, further ones are dropped and
+ * counted in {@code audit.dropped} rather than slowing down the admin request.
+ */
+@Component
+public class AuditLog {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLog.class);
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final int queueCapacity;
+    private final long fsyncIntervalNanos;
+    private final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter failed;
+    private final Timer fsyncTimer;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+    private volatile boolean writerParked;
+
+    public AuditLog(MeterRegistry meterRegistry,
+                    @Value("${app.audit.enabled:true}") boolean enabled,
+                    @Value("${app.audit.dir:audit}") String directory,
+                    @Value("${app.audit.segment-size:64MB}") DataSize segmentSize,
+                    @Value("${app.audit.queue-capacity:65536}") int queueCapacity,
+                    @Value("${app.audit.fsync-interval:PT1S}") Duration fsyncInterval) {
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.segmentSize = Math.toIntExact(segmentSize.toBytes());
+        this.queueCapacity = queueCapacity;
+        this.fsyncIntervalNanos = fsyncInterval.toNanos();
+        this.written = meterRegistry.counter("audit.written");
+        this.dropped = meterRegistry.counter("audit.dropped");
+        this.failed = meterRegistry.counter("audit.failed");
+        this.fsyncTimer = meterRegistry.timer("audit.fsync");
+        meterRegistry.gauge("audit.queue.depth", Tags.empty(), depth);
+        this.writerThread = new Thread(this::run, "audit-writer");
+        this.writerThread.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            writerThread.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // the writer drains the queue and forces the segment before it exits
+        running = false;
+        LockSupport.unpark(writerThread);
+        writerThread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * Audits a change made by the current user to {@code entity} {@code entityId}.
+     */
+    public void record(AuditAction action, AuditEntity entity, long entityId) {
+        if (!enabled) {
+            return;
+        }
+        long actorId = 0;
+        String actor = "";
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserDetailsImpl userDetails) {
+            actorId = userDetails.getId();
+            actor = userDetails.getUsername();
+        }
+        Pending pending = new Pending(System.currentTimeMillis(), actorId, actor, action, entity, entityId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(pending);
+                }
+            });
+            return;
+        }
+        enqueue(pending);
+    }
+
+    private void enqueue(Pending pending) {
+        if (!running || depth.incrementAndGet() > queueCapacity) {
+            depth.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+        queue.offer(pending);
+        if (writerParked) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    private void run() {
+        AuditLogWriter writer;
+        try {
+            writer = new AuditLogWriter(directory, segmentSize);
+        } catch (IOException | RuntimeException e) {
+            log.error("Audit log disabled, cannot open {}: {}", directory.toAbsolutePath(), e.getMessage());
+            running = false;
+            return;
+        }
+        long lastForce = System.nanoTime();
+        try (writer) {
+            while (running || !queue.isEmpty()) {
+                Pending pending = queue.poll();
+                if (pending != null) {
+                    depth.decrementAndGet();
+                    append(writer, pending);
+                } else {
+                    writerParked = true;
+                    // re-check after publishing the flag, or an offer in between would wait a whole interval
+                    if (queue.isEmpty() && running) {
+                        LockSupport.parkNanos(this, fsyncIntervalNanos);
+                    }
+                    writerParked = false;
+                }
+                if (System.nanoTime() - lastForce >= fsyncIntervalNanos) {
+                    fsyncTimer.record(writer::force);
+                    lastForce = System.nanoTime();
+                }
+            }
+        } catch (IOException e) {
+            log.error("Closing the audit log failed: {}", e.getMessage());
+        }
+    }
+
+    private void append(AuditLogWriter writer, Pending pending) {
+        try {
+            writer.append(pending.timestampMillis(), pending.actorId(), pending.actor(), pending.action(),
+                    pending.entity(), pending.entityId());
+            written.increment();
+        } catch (IOException | RuntimeException e) {
+            failed.increment();
+            log.error("Audit record for {} {} {} lost: {}", pending.action(), pending.entity(), pending.entityId(), e.getMessage());
+        }
+    }
+
+    private record Pending(long timestampMillis, long actorId, String actor, AuditAction action, AuditEntity entity,
+                           long entityId) {
+    }
+}
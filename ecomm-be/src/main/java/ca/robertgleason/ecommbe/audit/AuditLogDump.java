@@ -0,0 +1,59 @@
+package ca.robertgleason.ecommbe.audit;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.function.Consumer;
+
+/**
+ * Prints an audit log as one line per record:
+ * <pre>
+ * java -cp target/classes ca.robertgleason.ecommbe.audit.AuditLogDump [--from SEQUENCE] [--follow] [DIRECTORY]
+ * java -cp app.jar -Dloader.main=ca.robertgleason.ecommbe.audit.AuditLogDump \
+ *      org.springframework.boot.loader.launch.PropertiesLauncher --follow audit
+ * </pre>
+ * {@code DIRECTORY} defaults to {@code audit}, the default of {@code app.audit.dir}. With
+ * {@code --follow} it keeps printing records as the application appends them, like {@code tail -f}.
+ */
+public final class AuditLogDump {
+
+    private static final long FOLLOW_POLL_MILLIS = 200;
+
+    private AuditLogDump() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        long fromSequence = 0;
+        boolean follow = false;
+        Path directory = Path.of("audit");
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--from" -> fromSequence = Long.parseLong(args[++i]);
+                case "--follow" -> follow = true;
+                case "--help" -> {
+                    System.out.println("usage: AuditLogDump [--from SEQUENCE] [--follow] [DIRECTORY]");
+                    return;
+                }
+                default -> directory = Path.of(args[i]);
+            }
+        }
+
+        PrintStream out = System.out;
+        Consumer<AuditRecord> printer = record -> out.printf("%d %s %s %s %d by %s (%d)%n",
+                record.sequence(), Instant.ofEpochMilli(record.timestampMillis()), record.action(), record.entity(),
+                record.entityId(), record.actor().isEmpty() ? "-" : record.actor(), record.actorId());
+        if (!follow) {
+            AuditLogReader.readAll(directory, fromSequence, printer);
+            return;
+        }
+        try (AuditLogReader.Tailer tailer = AuditLogReader.tail(directory, fromSequence)) {
+            while (!Thread.currentThread().isInterrupted()) {
+                if (tailer.poll(printer, 4096) == 0) {
+                    out.flush();
+                    Thread.sleep(FOLLOW_POLL_MILLIS);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package ca.robertgleason.ecommbe.audit;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.zip.CRC32C;
+
+/**
+ * On-disk layout of the audit log. The log is a directory of fixed-size segments named after the
+ * sequence of their first record, so sorting the names sorts the log.
+ * <pre>
+ * segment header: int magic, int version, long first sequence
+ * record:         int body length, int CRC32C of body, body
+ * body:           long sequence, long timestamp millis, long actor id, long entity id,
+ *                 byte action, byte entity, byte actor length, actor (UTF-8, at most 255 bytes)
+ * </pre>
+ * Segments are zero-filled when created and the length is written last, so a zero length marks
+ * the end of the data and a record whose CRC does not match is torn or still being written.
+ */
+final class AuditLogFormat {
+
+    static final int MAGIC = 0x41554431; // "AUD1"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_HEADER_SIZE = 8;
+    static final int FIXED_BODY_SIZE = 4 * Long.BYTES + 3;
+    static final int MAX_ACTOR_BYTES = 255;
+
+    private static final String PREFIX = "audit-";
+    private static final String SUFFIX = ".log";
+
+    private AuditLogFormat() {
+    }
+
+    static Path segmentPath(Path directory, long firstSequence) {
+        return directory.resolve(String.format("%s%020d%s", PREFIX, firstSequence, SUFFIX));
+    }
+
+    static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    static boolean isSegment(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+    }
+
+    static byte[] actorBytes(String actor) {
+        byte[] bytes = actor.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= MAX_ACTOR_BYTES) {
+            return bytes;
+        }
+        // cutting at a byte boundary may split a character; the reader replaces the fragment
+        byte[] truncated = new byte[MAX_ACTOR_BYTES];
+        System.arraycopy(bytes, 0, truncated, 0, MAX_ACTOR_BYTES);
+        return truncated;
+    }
+
+    static int crc(ByteBuffer buffer, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Decodes the record at {@code position}, or returns null if there is no complete record
+     * there yet.
+     */
+    static AuditRecord read(ByteBuffer buffer, int position) {
+        if (position + RECORD_HEADER_SIZE > buffer.limit()) {
+            return null;
+        }
+        int length = buffer.getInt(position);
+        if (length < FIXED_BODY_SIZE || length > FIXED_BODY_SIZE + MAX_ACTOR_BYTES
+                || position + RECORD_HEADER_SIZE + length > buffer.limit()) {
+            return null;
+        }
+        int body = position + RECORD_HEADER_SIZE;
+        if (buffer.getInt(position + 4) != crc(buffer, body, length)) {
+            return null;
+        }
+        int actorLength = Byte.toUnsignedInt(buffer.get(body + 34));
+        byte[] actor = new byte[actorLength];
+        buffer.get(body + FIXED_BODY_SIZE, actor);
+        return new AuditRecord(buffer.getLong(body), buffer.getLong(body + 8), buffer.getLong(body + 16),
+                new String(actor, StandardCharsets.UTF_8), AuditAction.values()[buffer.get(body + 32)],
+                AuditEntity.values()[buffer.get(body + 33)], buffer.getLong(body + 24));
+    }
+
+    /**
+     * Bytes taken by the intact record at {@code position}, i.e. the offset of the next one.
+     */
+    static int storedSize(ByteBuffer buffer, int position) {
+        return RECORD_HEADER_SIZE + buffer.getInt(position);
+    }
+}
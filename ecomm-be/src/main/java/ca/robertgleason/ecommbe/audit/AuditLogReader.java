@@ -0,0 +1,163 @@
+package ca.robertgleason.ecommbe.audit;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Reads an audit log directory, also while {@link AuditLog} is appending to it, from this or
+ * another process. Segments are mapped read-only; nothing is copied but the records handed out.
+ */
+public final class AuditLogReader {
+
+    private AuditLogReader() {
+    }
+
+    /**
+     * Segment files of the log, oldest first.
+     */
+    public static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(AuditLogFormat::isSegment).sorted().toList();
+        }
+    }
+
+    /**
+     * Passes every record with a sequence of at least {@code fromSequence} to {@code consumer}, in
+     * order, and returns how many there were.
+     */
+    public static long readAll(Path directory, long fromSequence, Consumer<AuditRecord> consumer) throws IOException {
+        try (Tailer tailer = tail(directory, fromSequence)) {
+            long total = 0;
+            int read;
+            while ((read = tailer.poll(consumer, 4096)) > 0) {
+                total += read;
+            }
+            return total;
+        }
+    }
+
+    /**
+     * A tailer positioned at the first record with a sequence of at least {@code fromSequence}.
+     */
+    public static Tailer tail(Path directory, long fromSequence) {
+        return new Tailer(directory, fromSequence);
+    }
+
+    /**
+     * Follows the log as it grows. Each {@link #poll} returns what was appended since the last one
+     * and moves on to the next segment when the writer has rotated. Not thread-safe.
+     */
+    public static final class Tailer implements AutoCloseable {
+
+        private final Path directory;
+        private final long fromSequence;
+        private Path segment;
+        private FileChannel channel;
+        private MappedByteBuffer buffer;
+        private int position;
+
+        private Tailer(Path directory, long fromSequence) {
+            this.directory = directory;
+            this.fromSequence = fromSequence;
+        }
+
+        /**
+         * Delivers up to {@code maxRecords} new records and returns how many it delivered; 0 means
+         * the tailer has caught up with the writer.
+         */
+        public int poll(Consumer<AuditRecord> consumer, int maxRecords) {
+            try {
+                if (segment == null && !openInitialSegment()) {
+                    return 0;
+                }
+                int delivered = 0;
+                while (delivered < maxRecords) {
+                    AuditRecord record = AuditLogFormat.read(buffer, position);
+                    if (record == null) {
+                        Path next = nextSegment();
+                        if (next == null) {
+                            break;
+                        }
+                        // the writer finishes a segment before it creates the next, so one more read settles it
+                        record = AuditLogFormat.read(buffer, position);
+                        if (record == null) {
+                            if (!open(next)) {
+                                break;
+                            }
+                            continue;
+                        }
+                    }
+                    position += AuditLogFormat.storedSize(buffer, position);
+                    if (record.sequence() >= fromSequence) {
+                        consumer.accept(record);
+                        delivered++;
+                    }
+                }
+                return delivered;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+
+        private boolean openInitialSegment() throws IOException {
+            List<Path> segments = segments(directory);
+            if (segments.isEmpty()) {
+                return false;
+            }
+            // the newest segment that starts at or before the requested sequence
+            Path start = segments.get(0);
+            for (Path candidate : segments) {
+                if (AuditLogFormat.firstSequence(candidate) > fromSequence) {
+                    break;
+                }
+                start = candidate;
+            }
+            return open(start);
+        }
+
+        private Path nextSegment() throws IOException {
+            for (Path candidate : segments(directory)) {
+                if (candidate.compareTo(segment) > 0) {
+                    return candidate;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Switches to {@code next}, or stays put and returns false if the writer is still creating it.
+         */
+        private boolean open(Path next) throws IOException {
+            FileChannel nextChannel = FileChannel.open(next, StandardOpenOption.READ);
+            MappedByteBuffer nextBuffer = nextChannel.map(FileChannel.MapMode.READ_ONLY, 0, nextChannel.size());
+            if (nextBuffer.limit() < AuditLogFormat.HEADER_SIZE || nextBuffer.getInt(0) != AuditLogFormat.MAGIC) {
+                nextChannel.close();
+                return false;
+            }
+            close();
+            segment = next;
+            channel = nextChannel;
+            buffer = nextBuffer;
+            position = AuditLogFormat.HEADER_SIZE;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package ca.robertgleason.ecommbe.audit;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends records to memory-mapped segments, rotating to a new segment when the current one is
+ * full. Not thread-safe: {@link AuditLog} owns the only instance and calls it from its writer
+ * thread. On open it continues after the last intact record of the newest segment.
+ */
+final class AuditLogWriter implements AutoCloseable {
+
+    private final Path directory;
+    private final int segmentSize;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long nextSequence;
+    private boolean dirty;
+
+    AuditLogWriter(Path directory, int segmentSize) throws IOException {
+        if (segmentSize < AuditLogFormat.HEADER_SIZE + AuditLogFormat.RECORD_HEADER_SIZE
+                + AuditLogFormat.FIXED_BODY_SIZE + AuditLogFormat.MAX_ACTOR_BYTES) {
+            throw new IllegalArgumentException("Audit segment size " + segmentSize + " cannot hold a record");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+        List<Path> segments = AuditLogReader.segments(directory);
+        if (segments.isEmpty()) {
+            openSegment(1);
+        } else {
+            resume(segments.get(segments.size() - 1));
+        }
+    }
+
+    long append(long timestampMillis, long actorId, String actor, AuditAction action, AuditEntity entity, long entityId)
+            throws IOException {
+        byte[] actorBytes = AuditLogFormat.actorBytes(actor);
+        int length = AuditLogFormat.FIXED_BODY_SIZE + actorBytes.length;
+        if (buffer.remaining() < AuditLogFormat.RECORD_HEADER_SIZE + length) {
+            rotate();
+        }
+        long sequence = nextSequence++;
+        int position = buffer.position();
+        int body = position + AuditLogFormat.RECORD_HEADER_SIZE;
+        buffer.putLong(body, sequence)
+                .putLong(body + 8, timestampMillis)
+                .putLong(body + 16, actorId)
+                .putLong(body + 24, entityId)
+                .put(body + 32, (byte) action.ordinal())
+                .put(body + 33, (byte) entity.ordinal())
+                .put(body + 34, (byte) actorBytes.length)
+                .put(body + AuditLogFormat.FIXED_BODY_SIZE, actorBytes);
+        buffer.putInt(position + 4, AuditLogFormat.crc(buffer, body, length));
+        // the length goes last: until it is non-zero, readers see the end of the log here
+        buffer.putInt(position, length);
+        buffer.position(body + length);
+        dirty = true;
+        return sequence;
+    }
+
+    /**
+     * Flushes written records to the device. A no-op if nothing was appended since the last call.
+     */
+    void force() {
+        if (dirty) {
+            buffer.force();
+            dirty = false;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private void rotate() throws IOException {
+        close();
+        openSegment(nextSequence);
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        channel = FileChannel.open(AuditLogFormat.segmentPath(directory, firstSequence),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // mapping past the end grows the file; the new bytes read as zero
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        buffer.putInt(0, AuditLogFormat.MAGIC)
+                .putInt(4, AuditLogFormat.VERSION)
+                .putLong(8, firstSequence);
+        buffer.position(AuditLogFormat.HEADER_SIZE);
+        nextSequence = firstSequence;
+        dirty = true;
+    }
+
+    private void resume(Path segment) throws IOException {
+        channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), segmentSize));
+        if (buffer.getInt(0) == 0 && buffer.getInt(4) == 0 && buffer.getLong(8) == 0) {
+            // created right before a crash that lost its header page: an empty segment, its name still says where it starts
+            long firstSequence = AuditLogFormat.firstSequence(segment);
+            buffer.putInt(0, AuditLogFormat.MAGIC)
+                    .putInt(4, AuditLogFormat.VERSION)
+                    .putLong(8, firstSequence);
+            resumeAt(AuditLogFormat.HEADER_SIZE, firstSequence);
+            return;
+        }
+        if (buffer.getInt(0) != AuditLogFormat.MAGIC || buffer.getInt(4) != AuditLogFormat.VERSION) {
+            throw new IOException("Not an audit log segment: " + segment);
+        }
+        long sequence = buffer.getLong(8);
+        int position = AuditLogFormat.HEADER_SIZE;
+        AuditRecord record;
+        while ((record = AuditLogFormat.read(buffer, position)) != null) {
+            sequence = record.sequence() + 1;
+            position += AuditLogFormat.storedSize(buffer, position);
+        }
+        resumeAt(position, sequence);
+    }
+
+    private void resumeAt(int position, long sequence) {
+        // anything after the last intact record was torn by a crash; pages of later records may even have
+        // reached the disk, so the whole tail is zeroed rather than left for readers to mistake for data
+        byte[] zeros = new byte[8192];
+        for (int offset = position; offset < buffer.limit(); offset += zeros.length) {
+            buffer.put(offset, zeros, 0, Math.min(zeros.length, buffer.limit() - offset));
+        }
+        buffer.position(position);
+        nextSequence = sequence;
+        dirty = true;
+    }
+}
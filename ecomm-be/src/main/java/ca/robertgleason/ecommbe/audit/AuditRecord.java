@@ -0,0 +1,9 @@
+package ca.robertgleason.ecommbe.audit;
+
+/**
+ * One catalog mutation. {@code actorId} is 0 and {@code actor} empty when the change was not made
+ * by an authenticated user.
+ */
+public record AuditRecord(long sequence, long timestampMillis, long actorId, String actor, AuditAction action,
+                          AuditEntity entity, long entityId) {
+}
@@ -3,8 +3,12 @@ package ca.robertgleason.ecommbe.config;
 import org.modelmapper.ModelMapper;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @Configuration
+@EnableAsync
+@EnableScheduling
 public class AppConfig {
 
 
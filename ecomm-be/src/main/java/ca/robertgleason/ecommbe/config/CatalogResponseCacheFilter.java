@@ -0,0 +1,294 @@
+package ca.robertgleason.ecommbe.config;
+
+import ca.robertgleason.ecommbe.service.CatalogVersion;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Caches the encoded bytes of public catalog GET responses. A hit writes the stored body straight
+ * to the servlet output stream, skipping the controller, the service and Jackson entirely.
+ * Entries belong to a {@link CatalogVersion}; the first request after a catalog mutation
+ * drops the whole cache. Listings also embed which image variants are ready, so finished variant
+ * generation bumps the version too.
+ * <p>
+ * Entries are spread over lock stripes by key, each an access-ordered map holding its share of
+ * {@code maxEntries}, so concurrent hits on different pages do not serialize on one lock and
+ * least-recently-used eviction is kept per stripe.
+ * <p>
+ * Only 200 responses are stored, together with the headers that describe the representation.
+ * Entries are keyed on the representations the {@code Accept} header selects rather than on its
+ * raw text, so JSON, Smile, CBOR and columnar bodies are kept apart without one entry per
+ * browser's Accept string.
+ */
+public class CatalogResponseCacheFilter extends OncePerRequestFilter {
+
+    // the media types our message converters write, in converter order
+    private static final List<MediaType> REPRESENTATIONS = List.of(
+            MediaType.APPLICATION_JSON,
+            new MediaType("application", "x-jackson-smile"),
+            MediaType.APPLICATION_CBOR,
+            ProductColumnarHttpMessageConverter.MEDIA_TYPE);
+
+    // Content-Type and Content-Length are written separately
+    private static final List<String> REPLAYED_HEADERS = List.of(
+            HttpHeaders.VARY, HttpHeaders.CONTENT_LANGUAGE, HttpHeaders.CONTENT_ENCODING, HttpHeaders.CACHE_CONTROL,
+            HttpHeaders.EXPIRES, HttpHeaders.PRAGMA, HttpHeaders.ETAG, HttpHeaders.LAST_MODIFIED);
+
+    private static final int STRIPES = 16;
+
+    private final CatalogVersion catalogVersion;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Timer savedTimer;
+
+    public CatalogResponseCacheFilter(CatalogVersion catalogVersion, int maxEntries, MeterRegistry meterRegistry) {
+        this.catalogVersion = catalogVersion;
+        int entriesPerStripe = Math.max(1, (maxEntries + STRIPES - 1) / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(entriesPerStripe);
+        }
+        this.hitCounter = meterRegistry.counter("catalog.response.cache.hits");
+        this.missCounter = meterRegistry.counter("catalog.response.cache.misses");
+        this.savedTimer = meterRegistry.timer("catalog.response.cache.time.saved");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"GET".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        long version = catalogVersion.current();
+        String key = cacheKey(request);
+        if (key == null) {
+            // unparseable Accept; let content negotiation reject it
+            filterChain.doFilter(request, response);
+            return;
+        }
+        CachedResponse cached = lookup(key, version);
+        if (cached != null) {
+            hitCounter.increment();
+            savedTimer.record(cached.renderNanos, TimeUnit.NANOSECONDS);
+            write(request, response, cached);
+            return;
+        }
+
+        missCounter.increment();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        long start = System.nanoTime();
+        filterChain.doFilter(request, wrapper);
+        long renderNanos = System.nanoTime() - start;
+
+        if (wrapper.getStatus() == HttpStatus.OK.value()) {
+            store(key, version, new CachedResponse(wrapper.getStatus(), wrapper.getContentType(), headersOf(wrapper),
+                    wrapper.getContentAsByteArray(), renderNanos));
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private String cacheKey(HttpServletRequest request) {
+        String representations = acceptedRepresentations(request.getHeader(HttpHeaders.ACCEPT));
+        if (representations == null) {
+            return null;
+        }
+        String query = request.getQueryString();
+        return request.getRequestURI() + (query != null ? "?" + query : "") + "|" + representations;
+    }
+
+    /**
+     * The representations {@code accept} allows, most preferred first; two headers with the same
+     * answer negotiate the same response. Null if the header does not parse.
+     */
+    private static String acceptedRepresentations(String accept) {
+        List<MediaType> accepted;
+        try {
+            accepted = accept != null ? new ArrayList<>(MediaType.parseMediaTypes(accept)) : new ArrayList<>(List.of(MediaType.ALL));
+            MimeTypeUtils.sortBySpecificity(accepted);
+        } catch (InvalidMediaTypeException | InvalidMimeTypeException e) {
+            return null;
+        }
+        Set<String> representations = new LinkedHashSet<>();
+        for (MediaType mediaType : accepted) {
+            if (mediaType.getQualityValue() <= 0) {
+                continue;
+            }
+            for (MediaType representation : REPRESENTATIONS) {
+                if (mediaType.includes(representation)) {
+                    representations.add(representation.toString());
+                }
+            }
+        }
+        return String.join(",", representations);
+    }
+
+    private static Map<String, List<String>> headersOf(HttpServletResponse response) {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (String name : REPLAYED_HEADERS) {
+            List<String> values = List.copyOf(response.getHeaders(name));
+            if (!values.isEmpty()) {
+                headers.put(name, values);
+            }
+        }
+        return headers;
+    }
+
+    private CachedResponse lookup(String key, long version) {
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            if (stripe.version != version) {
+                stripe.clear();
+                stripe.version = version;
+                return null;
+            }
+            return stripe.get(key);
+        }
+    }
+
+    private void store(String key, long version, CachedResponse cached) {
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            // a mutation happened while rendering; the body may already be stale
+            if (stripe.version == version && catalogVersion.current() == version) {
+                stripe.put(key, cached);
+            }
+        }
+    }
+
+    private Stripe stripeFor(String key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    private void write(HttpServletRequest request, HttpServletResponse response, CachedResponse cached) throws IOException {
+        response.setStatus(cached.status);
+        response.setContentType(cached.contentType);
+        cached.headers.forEach((name, values) -> {
+            response.setHeader(name, values.get(0));
+            values.subList(1, values.size()).forEach(value -> response.addHeader(name, value));
+        });
+        List<String> vary = cached.headers.getOrDefault(HttpHeaders.VARY, List.of());
+        if (vary.stream().noneMatch(value -> value.toLowerCase(Locale.ROOT).contains("accept-encoding"))) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        byte[] body = cached.body;
+        // a body the application already encoded is replayed as stored
+        if (!cached.headers.containsKey(HttpHeaders.CONTENT_ENCODING) && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            body = cached.gzipped();
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /**
+     * Whether an {@code Accept-Encoding} header allows gzip: listed as {@code gzip} or
+     * {@code x-gzip}, or covered by {@code *}, with a non-zero q-value. An explicit
+     * {@code gzip;q=0} is a refusal even when {@code *} is acceptable.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double wildcardQuality = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.length() > 2 && parameter.substring(0, 2).equalsIgnoreCase("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzipQuality = gzipQuality == null ? quality : Math.max(gzipQuality, quality);
+            } else if (coding.equals("*")) {
+                wildcardQuality = quality;
+            }
+        }
+        Double quality = gzipQuality != null ? gzipQuality : wildcardQuality;
+        return quality != null && quality > 0;
+    }
+
+    // access-ordered, so the eldest entry is the least recently used one of this stripe
+    private static final class Stripe extends LinkedHashMap<String, CachedResponse> {
+
+        private final int maxEntries;
+        // the catalog version the entries belong to, guarded by the stripe
+        private long version;
+
+        private Stripe(int maxEntries) {
+            super(Math.min(maxEntries, 1024), 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+            return size() > maxEntries;
+        }
+    }
+
+    private static final class CachedResponse {
+        private final int status;
+        private final String contentType;
+        private final Map<String, List<String>> headers;
+        private final byte[] body;
+        private final long renderNanos;
+        private volatile byte[] gzipped;
+
+        private CachedResponse(int status, String contentType, Map<String, List<String>> headers, byte[] body, long renderNanos) {
+            this.status = status;
+            this.contentType = contentType;
+            this.headers = headers;
+            this.body = body;
+            this.renderNanos = renderNanos;
+        }
+
+        // compressed on first use; a racing duplicate compression is harmless
+        private byte[] gzipped() throws IOException {
+            byte[] result = gzipped;
+            if (result == null) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+                try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                    gzip.write(body);
+                }
+                result = out.toByteArray();
+                gzipped = result;
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package ca.robertgleason.ecommbe.config;
+
+import ca.robertgleason.ecommbe.service.CatalogVersion;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+public class DataSourceConfig {
+
+    /**
+     * Wraps the Hikari pool in a {@link ConnectionLimitingDataSource} so virtual threads queue on a
+     * semaphore matching {@code maximumPoolSize}. Enabled by the {@code virtual} profile.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.datasource.connection-limit.enabled", havingValue = "true")
+    public static BeanPostProcessor connectionLimitingDataSourcePostProcessor() {
+        return new OrderedPostProcessor(Ordered.HIGHEST_PRECEDENCE) {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource hikari) {
+                    return limited(hikari);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Wraps the data source everything else uses in a {@link StatementCountingDataSource}, so
+     * Hibernate and {@code JdbcTemplate} statements are counted alike. Runs after the connection
+     * limiter, which only recognizes the bare Hikari pool.
+     */
+    @Bean
+    public static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+        return new OrderedPostProcessor(Ordered.LOWEST_PRECEDENCE) {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && "dataSource".equals(beanName)) {
+                    return new StatementCountingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Primary plus replica pools behind {@link ReadWriteRoutingDataSource}. The primary uses the
+     * regular {@code spring.datasource.*} settings; replicas share its credentials. The pools are
+     * not beans, so the connection limiter is applied to each of them here rather than by
+     * {@link #connectionLimitingDataSourcePostProcessor()}.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.datasource.routing.enabled", havingValue = "true")
+    public ReadWriteRoutingDataSource routingDataSource(DataSourceProperties properties,
+                                                       @Value("${app.datasource.routing.replica-urls}") List<String> replicaUrls,
+                                                       @Value("${app.datasource.routing.read-your-writes-window:PT5S}") Duration readYourWritesWindow,
+                                                       @Value("${app.datasource.routing.pool-size:10}") int poolSize,
+                                                       @Value("${app.datasource.connection-limit.enabled:false}") boolean connectionLimit,
+                                                       CatalogVersion catalogVersion) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        primary.setMaximumPoolSize(poolSize);
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(url)
+                    .username(properties.determineUsername())
+                    .password(properties.determinePassword())
+                    .build();
+            replica.setPoolName("replica-" + replicas.size());
+            replica.setMaximumPoolSize(poolSize);
+            replica.setReadOnly(true);
+            replicas.add(connectionLimit ? limited(replica) : replica);
+        }
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(connectionLimit ? limited(primary) : primary,
+                replicas, readYourWritesWindow, catalogVersion);
+        routing.afterPropertiesSet();
+        return routing;
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "app.datasource.routing.enabled", havingValue = "true")
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    private static DataSource limited(HikariDataSource hikari) {
+        return new ConnectionLimitingDataSource(hikari, hikari.getMaximumPoolSize(), hikari.getConnectionTimeout());
+    }
+
+    private abstract static class OrderedPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final int order;
+
+        OrderedPostProcessor(int order) {
+            this.order = order;
+        }
+
+        @Override
+        public int getOrder() {
+            return order;
+        }
+    }
+}
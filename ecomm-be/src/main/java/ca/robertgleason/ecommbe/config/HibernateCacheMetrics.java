@@ -0,0 +1,46 @@
+package ca.robertgleason.ecommbe.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes {@code hibernate.cache.hit.ratio} per second-level cache region, next to the raw
+ * hit/miss counters that {@code hibernate-micrometer} already exports. Regions are those
+ * configured in {@code ehcache.xml}.
+ */
+@Component
+public class HibernateCacheMetrics implements MeterBinder {
+
+    private static final String[] REGIONS = {"category", "role", "product", "product-lookups", "default-query-results-region"};
+
+    private final Statistics statistics;
+
+    public HibernateCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (String region : REGIONS) {
+            Gauge.builder("hibernate.cache.hit.ratio", this, metrics -> metrics.hitRatio(region))
+                    .tag("region", region)
+                    .register(registry);
+        }
+    }
+
+    private double hitRatio(String region) {
+        CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+        if (regionStatistics == null) {
+            return 0;
+        }
+        long hits = regionStatistics.getHitCount();
+        long total = hits + regionStatistics.getMissCount();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
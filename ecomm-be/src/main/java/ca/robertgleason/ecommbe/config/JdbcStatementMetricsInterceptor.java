@@ -0,0 +1,65 @@
+package ca.robertgleason.ecommbe.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records how many JDBC statements each handled request issued, tagged like
+ * {@code http.server.requests} so the two can be read side by side. Statements are counted by
+ * {@link StatementCountingDataSource}.
+ * <p>
+ * The counter lives in a request attribute. An async handler detaches it when the request thread is
+ * released and picks it up again on the async dispatch, which is where the request is recorded.
+ * Work done for the request on other threads, such as an order's share of a group commit, is not
+ * counted.
+ */
+public class JdbcStatementMetricsInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String COUNTER_ATTRIBUTE = JdbcStatementMetricsInterceptor.class.getName() + ".counter";
+
+    private final MeterRegistry meterRegistry;
+
+    public JdbcStatementMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        AtomicInteger counter = (AtomicInteger) request.getAttribute(COUNTER_ATTRIBUTE);
+        if (counter == null) {
+            counter = new AtomicInteger();
+            request.setAttribute(COUNTER_ATTRIBUTE, counter);
+        }
+        StatementCountingDataSource.attach(counter);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // recorded by afterCompletion of the async dispatch
+        StatementCountingDataSource.detach();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        StatementCountingDataSource.detach();
+        AtomicInteger counter = (AtomicInteger) request.getAttribute(COUNTER_ATTRIBUTE);
+        if (counter == null) {
+            return;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        DistributionSummary.builder("http.server.requests.jdbc.statements")
+                .description("JDBC statements issued per request")
+                .tag("method", request.getMethod())
+                .tag("uri", pattern != null ? pattern.toString() : "UNKNOWN")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry)
+                .record(counter.get());
+    }
+}
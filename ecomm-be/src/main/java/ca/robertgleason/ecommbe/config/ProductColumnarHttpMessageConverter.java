@@ -0,0 +1,50 @@
+package ca.robertgleason.ecommbe.config;
+
+import ca.robertgleason.ecommbe.payload.ProductColumnarResponse;
+import ca.robertgleason.ecommbe.payload.ProductResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+/**
+ * Writes {@link ProductResponse} listing pages as {@link ProductColumnarResponse} when the client
+ * asks for {@value #MEDIA_TYPE_VALUE}. The body is JSON, but the media type deliberately has no
+ * {@code +json} suffix, otherwise the regular Jackson converter would claim it first.
+ */
+public class ProductColumnarHttpMessageConverter extends AbstractHttpMessageConverter<ProductResponse> {
+
+    public static final String MEDIA_TYPE_VALUE = "application/vnd.ecomm.columnar";
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+    private final ObjectMapper objectMapper;
+
+    public ProductColumnarHttpMessageConverter(ObjectMapper objectMapper) {
+        super(MEDIA_TYPE);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ProductResponse.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected ProductResponse readInternal(Class<? extends ProductResponse> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Columnar product pages are write-only", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(ProductResponse productResponse, HttpOutputMessage outputMessage) throws IOException {
+        objectMapper.writeValue(outputMessage.getBody(), ProductColumnarResponse.from(productResponse));
+    }
+}
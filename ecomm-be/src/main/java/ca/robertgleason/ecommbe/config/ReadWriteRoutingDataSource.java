@@ -0,0 +1,125 @@
+package ca.robertgleason.ecommbe.config;
+
+import ca.robertgleason.ecommbe.service.CatalogVersion;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to a round-robin pool of replicas and everything else to the
+ * primary. Must sit behind a {@code LazyConnectionDataSourceProxy}: the read-only flag of a
+ * Spring transaction is only known after the transaction manager asked for a connection.
+ * <p>
+ * Replicas lag behind the primary, so after a write transaction the same principal keeps reading
+ * from the primary for {@code readYourWritesWindow}. Catalog reads fill caches shared by everyone
+ * (the response cache, the second-level cache, coalesced queries) under the current
+ * {@link CatalogVersion}, so after any catalog commit every read goes to the primary for that
+ * window; a lagging replica would otherwise get its old rows cached as the new version. Outside
+ * both windows reads are spread over the replicas.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private static final String PRIMARY = "primary";
+    private static final int MAX_TRACKED_WRITERS = 10_000;
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final List<String> replicaKeys = new ArrayList<>();
+    private final long readYourWritesNanos;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Map<String, Long> lastWriteNanos = new ConcurrentHashMap<>();
+    private final CatalogVersion catalogVersion;
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<? extends DataSource> replicas, Duration readYourWritesWindow,
+                                      CatalogVersion catalogVersion) {
+        this.primary = primary;
+        this.catalogVersion = catalogVersion;
+        this.replicas = List.copyOf(replicas);
+        this.readYourWritesNanos = readYourWritesWindow.toNanos();
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < this.replicas.size(); i++) {
+            String key = "replica-" + i;
+            replicaKeys.add(key);
+            targets.put(key, this.replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String principal = currentPrincipal();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (principal != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+                // the lag window starts when the write becomes visible on the primary
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        recordWrite(principal);
+                    }
+                });
+            }
+            return PRIMARY;
+        }
+        if (replicaKeys.isEmpty() || recentlyWrote(principal) || catalogVersion.changedWithin(readYourWritesNanos)) {
+            return PRIMARY;
+        }
+        return replicaKeys.get(Math.floorMod(nextReplica.getAndIncrement(), replicaKeys.size()));
+    }
+
+    private void recordWrite(String principal) {
+        long now = System.nanoTime();
+        if (lastWriteNanos.size() >= MAX_TRACKED_WRITERS) {
+            lastWriteNanos.values().removeIf(at -> now - at > readYourWritesNanos);
+        }
+        lastWriteNanos.put(principal, now);
+    }
+
+    private boolean recentlyWrote(String principal) {
+        if (principal == null) {
+            return false;
+        }
+        Long at = lastWriteNanos.get(principal);
+        return at != null && System.nanoTime() - at <= readYourWritesNanos;
+    }
+
+    private static String currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken
+                || !authentication.isAuthenticated()) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    @Override
+    public void close() {
+        closePool(primary);
+        replicas.forEach(ReadWriteRoutingDataSource::closePool);
+    }
+
+    private static void closePool(DataSource dataSource) {
+        if (dataSource instanceof HikariDataSource hikari) {
+            hikari.close();
+        } else if (dataSource instanceof DelegatingDataSource delegating) {
+            closePool(delegating.getTargetDataSource());
+        }
+    }
+}
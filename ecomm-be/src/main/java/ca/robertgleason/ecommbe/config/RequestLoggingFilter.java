@@ -0,0 +1,108 @@
+package ca.robertgleason.ecommbe.config;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Writes exactly one access line per request to the {@code ecomm.request} logger, and for a
+ * configurable sample of requests a detail line with the query string and headers to
+ * {@code ecomm.trace}. Credentials never reach the log: cookies and authorization headers are
+ * redacted. Both loggers go through the asynchronous appender in {@code logback-spring.xml}.
+ * <p>
+ * Async requests are logged when the async processing completes, with the final status and the
+ * full duration; the async dispatch itself is not filtered, so it does not add a second line.
+ */
+public class RequestLoggingFilter extends OncePerRequestFilter {
+
+    public static final String USERNAME_ATTRIBUTE = RequestLoggingFilter.class.getName() + ".username";
+
+    private static final Logger requestLog = LoggerFactory.getLogger("ecomm.request");
+    private static final Logger traceLog = LoggerFactory.getLogger("ecomm.trace");
+
+    private static final Set<String> REDACTED_HEADERS = Set.of(
+            HttpHeaders.COOKIE.toLowerCase(Locale.ROOT),
+            HttpHeaders.AUTHORIZATION.toLowerCase(Locale.ROOT),
+            HttpHeaders.PROXY_AUTHORIZATION.toLowerCase(Locale.ROOT));
+
+    private final double traceSampleRate;
+
+    public RequestLoggingFilter(double traceSampleRate) {
+        this.traceSampleRate = traceSampleRate;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        long start = System.nanoTime();
+        int status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        try {
+            filterChain.doFilter(request, response);
+            status = response.getStatus();
+        } finally {
+            if (request.isAsyncStarted()) {
+                // the handler returned a future: status and duration are only known once the async dispatch completes
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        log(request, response.getStatus(), start);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                log(request, status, start);
+            }
+        }
+    }
+
+    private void log(HttpServletRequest request, int status, long start) {
+        long durationMicros = (System.nanoTime() - start) / 1_000;
+        Object username = request.getAttribute(USERNAME_ATTRIBUTE);
+        if (requestLog.isInfoEnabled()) {
+            requestLog.info("method={} uri={} status={} durationUs={} user={}",
+                    request.getMethod(), request.getRequestURI(), status, durationMicros,
+                    username != null ? username : "-");
+        }
+        if (traceSampleRate > 0 && traceLog.isInfoEnabled()
+                && ThreadLocalRandom.current().nextDouble() < traceSampleRate) {
+            traceLog.info("method={} uri={} query={} status={} durationUs={} headers={}",
+                    request.getMethod(), request.getRequestURI(), request.getQueryString(), status,
+                    durationMicros, redactedHeaders(request));
+        }
+    }
+
+    private String redactedHeaders(HttpServletRequest request) {
+        StringBuilder headers = new StringBuilder("{");
+        for (String name : Collections.list(request.getHeaderNames())) {
+            if (headers.length() > 1) {
+                headers.append(", ");
+            }
+            headers.append(name).append('=');
+            headers.append(REDACTED_HEADERS.contains(name.toLowerCase(Locale.ROOT)) ? "[REDACTED]" : request.getHeader(name));
+        }
+        return headers.append('}').toString();
+    }
+}
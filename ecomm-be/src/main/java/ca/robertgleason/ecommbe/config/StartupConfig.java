@@ -0,0 +1,39 @@
+package ca.robertgleason.ecommbe.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.web.SecurityFilterChain;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class StartupConfig {
+
+    /**
+     * With {@code spring.main.lazy-initialization=true} (the {@code fast-start} profile) beans are
+     * created on first use. The pool, the persistence unit and the web filter chain stay eager, so
+     * their cost is paid before readiness rather than by the first request.
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter criticalBeansExcludeFilter() {
+        return LazyInitializationExcludeFilter.forBeanTypes(
+                DataSource.class, EntityManagerFactory.class, SecurityFilterChain.class, FilterRegistrationBean.class);
+    }
+
+    /**
+     * {@code @Scheduled} methods are only registered when their bean is created, so background
+     * jobs must not be lazy or they would never run.
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter scheduledBeansExcludeFilter() {
+        return (beanName, beanDefinition, beanType) -> beanType != null
+                && !MethodIntrospector.selectMethods(beanType, (MethodIntrospector.MetadataLookup<Scheduled>) method ->
+                AnnotatedElementUtils.findMergedAnnotation(method, Scheduled.class)).isEmpty();
+    }
+}
@@ -0,0 +1,49 @@
+package ca.robertgleason.ecommbe.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reports how long the application took to become ready. The {@code startup} build profile
+ * uses {@code app.startup.report-file} and {@code app.startup.exit-after-ready} to record the
+ * figure in {@code target/} so regressions show up in the build.
+ */
+@Component
+public class StartupTimeReporter {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupTimeReporter.class);
+
+    @Value("${app.startup.report-file:}")
+    private String reportFile;
+
+    @Value("${app.startup.exit-after-ready:false}")
+    private boolean exitAfterReady;
+
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) throws IOException {
+        long readyMs = event.getTimeTaken() != null ? event.getTimeTaken().toMillis() : -1;
+        long jvmUptimeMs = ManagementFactory.getRuntimeMXBean().getUptime();
+        log.info("Application ready in {} ms (JVM uptime {} ms)", readyMs, jvmUptimeMs);
+
+        if (!reportFile.isBlank()) {
+            Path path = Path.of(reportFile);
+            if (path.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(path.toAbsolutePath().getParent());
+            }
+            Files.writeString(path, "startup.ready.ms=" + readyMs + "\nstartup.jvm-uptime.ms=" + jvmUptimeMs + "\n");
+        }
+        if (exitAfterReady) {
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        }
+    }
+}
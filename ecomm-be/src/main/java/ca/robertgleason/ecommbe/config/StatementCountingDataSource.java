@@ -0,0 +1,81 @@
+package ca.robertgleason.ecommbe.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the statements executed through connections of the wrapped data source, whether they
+ * come from Hibernate or from a {@code JdbcTemplate}. Each {@code execute*} call counts once, so a
+ * JDBC batch is one statement. Executions are added to the counter attached to the current thread
+ * by {@link #attach}; threads without one (schedulers, the order committer) are not counted.
+ */
+public class StatementCountingDataSource extends DelegatingDataSource {
+
+    private static final ThreadLocal<AtomicInteger> CURRENT = new ThreadLocal<>();
+
+    public StatementCountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    /**
+     * Sends the statements executed on this thread to {@code counter} until {@link #detach()}.
+     */
+    public static void attach(AtomicInteger counter) {
+        CURRENT.set(counter);
+    }
+
+    public static void detach() {
+        CURRENT.remove();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return counting(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return counting(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private static Connection counting(Connection target) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(method, target, args);
+                    // createStatement, prepareStatement and prepareCall; the return type picks the interface
+                    if (result instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                        return counting(statement, method.getReturnType());
+                    }
+                    return result;
+                });
+    }
+
+    private static Object counting(Statement target, Class<?> type) {
+        return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("execute")) {
+                        AtomicInteger counter = CURRENT.get();
+                        if (counter != null) {
+                            counter.incrementAndGet();
+                        }
+                    }
+                    return invoke(method, target, args);
+                });
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package ca.robertgleason.ecommbe.config;
+
+import ca.robertgleason.ecommbe.payload.APIResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds how many multipart requests are processed at once. The container only receives and
+ * spools a multipart body when the {@code DispatcherServlet} resolves its parts, which happens
+ * downstream of this filter, so the permit covers the actual disk write of the upload and not
+ * just the final move into the image directory. A request that cannot get a permit in time is
+ * turned away with 503 before its body is read.
+ */
+public class UploadConcurrencyFilter extends OncePerRequestFilter {
+
+    private final Semaphore permits;
+    private final long permitTimeoutMs;
+    private final ObjectMapper objectMapper;
+
+    public UploadConcurrencyFilter(int maxConcurrentUploads, long permitTimeoutMs, ObjectMapper objectMapper) {
+        this.permits = new Semaphore(maxConcurrentUploads, true);
+        this.permitTimeoutMs = permitTimeoutMs;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith("multipart/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(permitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reject(response, "Image upload interrupted");
+            return;
+        }
+        if (!acquired) {
+            reject(response, "Too many concurrent image uploads, please retry");
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    private void reject(HttpServletResponse response, String message) throws IOException {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new APIResponse(message, false));
+    }
+}
@@ -0,0 +1,151 @@
+package ca.robertgleason.ecommbe.config;
+
+import ca.robertgleason.ecommbe.excepetions.APIException;
+import ca.robertgleason.ecommbe.excepetions.ResourceNotFoundException;
+import ca.robertgleason.ecommbe.payload.CategoryDTO;
+import ca.robertgleason.ecommbe.payload.CategoryResponse;
+import ca.robertgleason.ecommbe.security.jwt.JwtUtils;
+import ca.robertgleason.ecommbe.service.CategoryService;
+import ca.robertgleason.ecommbe.service.ProductService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Exercises the hot read paths before the instance takes traffic, so the first real requests
+ * do not pay for cold JIT, empty Hibernate query plan caches and an idle connection pool.
+ * <p>
+ * Runs as the last runner: Spring Boot only flips readiness to {@code ACCEPTING_TRAFFIC} on
+ * {@code ApplicationReadyEvent}, which is published after all runners have returned, so the
+ * readiness probe reports {@code OUT_OF_SERVICE} for as long as this takes. Only read-only
+ * service calls are made.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmupRunner.class);
+
+    private final ProductService productService;
+    private final CategoryService categoryService;
+    private final JwtUtils jwtUtils;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AtomicInteger completedIterations = new AtomicInteger();
+
+    private volatile boolean complete;
+
+    @Value("${app.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.warmup.iterations:200}")
+    private int iterations;
+
+    @Value("${app.warmup.max-duration:PT30S}")
+    private Duration maxDuration;
+
+    @Value("${app.warmup.page-size:" + AppConstants.PAGE_SIZE + "}")
+    private int pageSize;
+
+    public WarmupRunner(ProductService productService, CategoryService categoryService, JwtUtils jwtUtils,
+                        ObjectMapper objectMapper, MeterRegistry meterRegistry, ApplicationEventPublisher eventPublisher) {
+        this.productService = productService;
+        this.categoryService = categoryService;
+        this.jwtUtils = jwtUtils;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.eventPublisher = eventPublisher;
+        meterRegistry.gauge("app.warmup.iterations", completedIterations);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled || iterations <= 0) {
+            complete = true;
+            return;
+        }
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+        String token = jwtUtils.generateTokenFromUsername("warmup");
+        int completed = 0;
+        while (completed < iterations && System.nanoTime() < deadline) {
+            runIteration(completed, token);
+            completed++;
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        meterRegistry.timer("app.warmup.duration").record(elapsedNanos, TimeUnit.NANOSECONDS);
+        completedIterations.set(completed);
+        log.info("Warm-up finished: {} of {} iterations in {} ms", completed, iterations,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        complete = true;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    private void runIteration(int iteration, String token) {
+        // alternate sort orders and pages so every listing query shape gets a cached plan
+        String sortOrder = iteration % 2 == 0 ? "asc" : "desc";
+        int pageNumber = iteration % 3;
+
+        CategoryResponse categories = read(() -> categoryService.getAllCategories(pageNumber, pageSize,
+                AppConstants.SORT_CATEGORIES_BY, sortOrder));
+        serialize(categories);
+
+        serialize(read(() -> productService.getAllProducts(pageNumber, pageSize,
+                AppConstants.SORT_PRODUCTS_BY, sortOrder)));
+        serialize(read(() -> productService.searchProductByKeyword(iteration % 2 == 0 ? "a" : "e", pageNumber,
+                pageSize, AppConstants.SORT_PRODUCTS_BY, sortOrder)));
+
+        if (categories != null && !categories.getCategories().isEmpty()) {
+            CategoryDTO category = categories.getCategories().get(iteration % categories.getCategories().size());
+            serialize(read(() -> productService.searchByCategory(category.getCategoryId(), 0, pageSize,
+                    AppConstants.SORT_PRODUCTS_BY, sortOrder)));
+        }
+
+        if (jwtUtils.validateJwtToken(token)) {
+            jwtUtils.getUserNameFromJwtToken(token);
+        }
+    }
+
+    // an empty catalog still exercises the query, so "nothing found" is not a warm-up failure
+    private <T> T read(Supplier<T> call) {
+        try {
+            return call.get();
+        } catch (APIException | ResourceNotFoundException e) {
+            return null;
+        }
+    }
+
+    private void serialize(Object response) {
+        if (response == null) {
+            return;
+        }
+        try {
+            objectMapper.writeValueAsBytes(response);
+        } catch (JsonProcessingException e) {
+            log.warn("Warm-up serialization failed: {}", e.getMessage());
+        }
+    }
+}
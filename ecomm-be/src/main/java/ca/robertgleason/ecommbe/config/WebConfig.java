@@ -0,0 +1,87 @@
+package ca.robertgleason.ecommbe.config;
+
+import ca.robertgleason.ecommbe.service.CatalogVersion;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    public WebConfig(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new JdbcStatementMetricsInterceptor(meterRegistry));
+    }
+
+    /**
+     * Smile and CBOR converters are registered by Spring MVC because their Jackson data formats are
+     * on the classpath; like the columnar converter they come after JSON, so JSON stays the
+     * default when the client does not ask for a specific format.
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new ProductColumnarHttpMessageConverter(objectMapper));
+    }
+
+    /**
+     * Registered after the Spring Security filter chain (order -100), so cached bodies are only
+     * served to requests that passed authentication.
+     */
+    @Bean
+    public FilterRegistrationBean<CatalogResponseCacheFilter> catalogResponseCacheFilter(
+            CatalogVersion catalogVersion,
+            @Value("${app.response-cache.enabled:true}") boolean enabled,
+            @Value("${app.response-cache.max-entries:1000}") int maxEntries) {
+        FilterRegistrationBean<CatalogResponseCacheFilter> registration =
+                new FilterRegistrationBean<>(new CatalogResponseCacheFilter(catalogVersion, maxEntries, meterRegistry));
+        registration.addUrlPatterns("/api/public/*");
+        registration.setOrder(0);
+        registration.setEnabled(enabled);
+        return registration;
+    }
+
+    /**
+     * Registered after the Spring Security filter chain, so unauthenticated uploads are rejected
+     * without taking a permit, and before the {@code DispatcherServlet} parses the multipart body.
+     */
+    @Bean
+    public FilterRegistrationBean<UploadConcurrencyFilter> uploadConcurrencyFilter(
+            @Value("${project.image.upload.max-concurrent-uploads:8}") int maxConcurrentUploads,
+            @Value("${project.image.upload.permit-timeout-ms:2000}") long permitTimeoutMs) {
+        FilterRegistrationBean<UploadConcurrencyFilter> registration =
+                new FilterRegistrationBean<>(new UploadConcurrencyFilter(maxConcurrentUploads, permitTimeoutMs, objectMapper));
+        registration.setOrder(0);
+        return registration;
+    }
+
+    /**
+     * Outermost filter, so the logged duration covers security and error handling as well.
+     */
+    @Bean
+    public FilterRegistrationBean<RequestLoggingFilter> requestLoggingFilter(
+            @Value("${app.request-log.enabled:true}") boolean enabled,
+            @Value("${app.request-log.trace-sample-rate:0.01}") double traceSampleRate) {
+        FilterRegistrationBean<RequestLoggingFilter> registration =
+                new FilterRegistrationBean<>(new RequestLoggingFilter(traceSampleRate));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        registration.setEnabled(enabled);
+        return registration;
+    }
+}
@@ -0,0 +1,47 @@
+package ca.robertgleason.ecommbe.controller;
+
+
+import ca.robertgleason.ecommbe.payload.AddressDTO;
+import ca.robertgleason.ecommbe.security.services.UserDetailsImpl;
+import ca.robertgleason.ecommbe.service.AddressService;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api")
+public class AddressController {
+
+
+    private final AddressService addressService;
+
+    public AddressController(AddressService addressService) {
+        this.addressService = addressService;
+    }
+
+    @PostMapping("/addresses")
+    public ResponseEntity<AddressDTO> addAddress(@Valid @RequestBody AddressDTO addressDTO, Authentication authentication) {
+        AddressDTO savedAddressDTO = addressService.addAddress(userId(authentication), addressDTO);
+        return new ResponseEntity<>(savedAddressDTO, HttpStatus.CREATED);
+    }
+
+    @GetMapping("/users/addresses")
+    public ResponseEntity<List<AddressDTO>> getUserAddresses(Authentication authentication) {
+        List<AddressDTO> addresses = addressService.getUserAddresses(userId(authentication));
+        return new ResponseEntity<>(addresses, HttpStatus.OK);
+    }
+
+    @DeleteMapping("/users/addresses/{addressId}")
+    public ResponseEntity<AddressDTO> removeAddress(@PathVariable Long addressId, Authentication authentication) {
+        AddressDTO addressDTO = addressService.removeAddress(userId(authentication), addressId);
+        return new ResponseEntity<>(addressDTO, HttpStatus.OK);
+    }
+
+    private static Long userId(Authentication authentication) {
+        return ((UserDetailsImpl) authentication.getPrincipal()).getId();
+    }
+}
@@ -0,0 +1,52 @@
+package ca.robertgleason.ecommbe.controller;
+
+
+import ca.robertgleason.ecommbe.payload.CartDTO;
+import ca.robertgleason.ecommbe.security.services.UserDetailsImpl;
+import ca.robertgleason.ecommbe.service.CartService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api")
+public class CartController {
+
+
+    private final CartService cartService;
+
+    public CartController(CartService cartService) {
+        this.cartService = cartService;
+    }
+
+    @GetMapping("/carts/users/cart")
+    public ResponseEntity<CartDTO> getCart(Authentication authentication) {
+        CartDTO cartDTO = cartService.getCart(userId(authentication));
+        return new ResponseEntity<>(cartDTO, HttpStatus.OK);
+    }
+
+    @PostMapping("/carts/products/{productId}/quantity/{quantity}")
+    public ResponseEntity<CartDTO> addProductToCart(@PathVariable Long productId, @PathVariable Integer quantity,
+                                                    Authentication authentication) {
+        CartDTO cartDTO = cartService.addProduct(userId(authentication), productId, quantity);
+        return new ResponseEntity<>(cartDTO, HttpStatus.CREATED);
+    }
+
+    @PutMapping("/carts/products/{productId}/quantity/{quantity}")
+    public ResponseEntity<CartDTO> updateCartProduct(@PathVariable Long productId, @PathVariable Integer quantity,
+                                                     Authentication authentication) {
+        CartDTO cartDTO = cartService.updateProductQuantity(userId(authentication), productId, quantity);
+        return new ResponseEntity<>(cartDTO, HttpStatus.OK);
+    }
+
+    @DeleteMapping("/carts/products/{productId}")
+    public ResponseEntity<CartDTO> deleteProductFromCart(@PathVariable Long productId, Authentication authentication) {
+        CartDTO cartDTO = cartService.removeProduct(userId(authentication), productId);
+        return new ResponseEntity<>(cartDTO, HttpStatus.OK);
+    }
+
+    private static Long userId(Authentication authentication) {
+        return ((UserDetailsImpl) authentication.getPrincipal()).getId();
+    }
+}
@@ -0,0 +1,46 @@
+package ca.robertgleason.ecommbe.controller;
+
+import ca.robertgleason.ecommbe.service.FileService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+@RestController
+public class ImageController {
+
+    private final FileService fileService;
+
+    @Value("${project.image}")
+    private String path;
+
+    public ImageController(FileService fileService) {
+        this.fileService = fileService;
+    }
+
+    @GetMapping("/images/{*fileName}")
+    public void getImage(@PathVariable String fileName, HttpServletResponse response) throws IOException {
+        String name = fileName.startsWith("/") ? fileName.substring(1) : fileName;
+        ByteBuffer image = fileService.readImage(path, name);
+
+        response.setContentType(MediaTypeFactory.getMediaType(name)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        response.setContentLength(image.remaining());
+        // image names are unique per upload, so their content never changes
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable");
+
+        WritableByteChannel channel = Channels.newChannel(response.getOutputStream());
+        while (image.hasRemaining()) {
+            channel.write(image);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package ca.robertgleason.ecommbe.controller;
+
+
+import ca.robertgleason.ecommbe.payload.OrderDTO;
+import ca.robertgleason.ecommbe.security.services.UserDetailsImpl;
+import ca.robertgleason.ecommbe.service.OrderService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/api")
+public class OrderController {
+
+
+    private final OrderService orderService;
+
+    public OrderController(OrderService orderService) {
+        this.orderService = orderService;
+    }
+
+    // the request thread is released while the order waits for its batch to commit
+    @PostMapping("/orders/users/place")
+    public CompletableFuture<ResponseEntity<OrderDTO>> placeOrder(Authentication authentication) {
+        Long userId = ((UserDetailsImpl) authentication.getPrincipal()).getId();
+        return orderService.placeOrder(userId)
+                .thenApply(orderDTO -> new ResponseEntity<>(orderDTO, HttpStatus.CREATED));
+    }
+}
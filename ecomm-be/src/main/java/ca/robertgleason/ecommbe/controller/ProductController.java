@@ -2,6 +2,7 @@ package ca.robertgleason.ecommbe.controller;
 
 
 import ca.robertgleason.ecommbe.config.AppConstants;
+import ca.robertgleason.ecommbe.payload.ProductBatchResponse;
 import ca.robertgleason.ecommbe.payload.ProductDTO;
 import ca.robertgleason.ecommbe.payload.ProductResponse;
 import ca.robertgleason.ecommbe.service.ProductService;
@@ -11,6 +12,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api")
@@ -39,6 +41,12 @@ public class ProductController {
         return new ResponseEntity<>(productResponse, HttpStatus.OK);
     }
 
+    @GetMapping("/public/products/batch")
+    public ResponseEntity<ProductBatchResponse> getProductsByIds(@RequestParam("ids") List<Long> ids) {
+        ProductBatchResponse productBatchResponse = productService.getProductsByIds(ids);
+        return new ResponseEntity<>(productBatchResponse, HttpStatus.OK);
+    }
+
     @GetMapping("/public/categories/{categoryId}/products")
     public ResponseEntity<ProductResponse> getProductsByCategory(@PathVariable Long categoryId,
                                                                  @RequestParam(name = "pageNumber", defaultValue = AppConstants.PAGE_NUMBER, required = false) Integer pageNumber,
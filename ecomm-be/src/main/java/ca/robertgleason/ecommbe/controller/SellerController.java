@@ -0,0 +1,42 @@
+package ca.robertgleason.ecommbe.controller;
+
+
+import ca.robertgleason.ecommbe.config.AppConstants;
+import ca.robertgleason.ecommbe.payload.SellerProductsResponse;
+import ca.robertgleason.ecommbe.payload.SellerStatsDTO;
+import ca.robertgleason.ecommbe.security.services.UserDetailsImpl;
+import ca.robertgleason.ecommbe.service.SellerService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api")
+public class SellerController {
+
+
+    private final SellerService sellerService;
+
+    public SellerController(SellerService sellerService) {
+        this.sellerService = sellerService;
+    }
+
+    @GetMapping("/seller/stats")
+    public ResponseEntity<SellerStatsDTO> getStats(Authentication authentication) {
+        SellerStatsDTO sellerStatsDTO = sellerService.getStats(sellerId(authentication));
+        return new ResponseEntity<>(sellerStatsDTO, HttpStatus.OK);
+    }
+
+    @GetMapping("/seller/products")
+    public ResponseEntity<SellerProductsResponse> getProducts(@RequestParam(name = "afterId", defaultValue = "0", required = false) Long afterId,
+                                                              @RequestParam(name = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize,
+                                                              Authentication authentication) {
+        SellerProductsResponse response = sellerService.getProducts(sellerId(authentication), afterId, pageSize);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    private static Long sellerId(Authentication authentication) {
+        return ((UserDetailsImpl) authentication.getPrincipal()).getId();
+    }
+}
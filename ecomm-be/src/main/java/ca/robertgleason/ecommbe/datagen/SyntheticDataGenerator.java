@@ -0,0 +1,298 @@
+package ca.robertgleason.ecommbe.datagen;
+
+import ca.robertgleason.ecommbe.model.AppRole;
+import ca.robertgleason.ecommbe.model.Role;
+import ca.robertgleason.ecommbe.repository.RoleRepository;
+import ca.robertgleason.ecommbe.service.SellerStatsStore;
+import ca.robertgleason.ecommbe.utilties.AddressNormalizer;
+import ca.robertgleason.ecommbe.utilties.PriceUtils;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Fills the database with a large, skewed, reproducible data set for scale testing:
+ * categories, users (a share of them sellers) with addresses, and products whose category and
+ * seller follow a Zipf distribution and whose prices are log-normally spread.
+ * <p>
+ * Rows are written with multi-row JDBC batches from several threads, one connection each. Every
+ * chunk draws from its own random stream derived from {@code app.datagen.seed}, so the
+ * generated content is identical across runs regardless of thread scheduling. Enable with
+ * {@code app.datagen.enabled=true}.
+ */
+@Component
+@Order(0)
+@ConditionalOnProperty(name = "app.datagen.enabled", havingValue = "true")
+public class SyntheticDataGenerator implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    private static final String[] ADJECTIVES = {
+            "Classic", "Premium", "Compact", "Wireless", "Vintage", "Ergonomic", "Smart", "Rugged", "Portable",
+            "Deluxe", "Organic", "Modern", "Handmade", "Ultra", "Eco", "Professional", "Lightweight", "Heavy-Duty"};
+    private static final String[] NOUNS = {
+            "phone", "laptop", "chair", "lamp", "shirt", "book", "headphones", "backpack", "kettle", "camera",
+            "sneakers", "watch", "desk", "blender", "jacket", "monitor", "speaker", "tent", "mug", "keyboard"};
+    private static final String[] DEPARTMENTS = {
+            "Electronics", "Home", "Garden", "Fashion", "Sports", "Outdoors", "Kitchen", "Office", "Toys", "Books",
+            "Beauty", "Automotive", "Grocery", "Music", "Health"};
+    private static final String[] STREETS = {"Main Street", "Oak Avenue", "Maple Road", "Cedar Lane", "Elm Street", "King Street"};
+    private static final String[] CITIES = {"Toronto", "Vancouver", "Montreal", "Calgary", "Ottawa", "Halifax", "Winnipeg"};
+    private static final String[] STATES = {"ON", "BC", "QC", "AB", "ON", "NS", "MB"};
+
+    private final DataSource dataSource;
+    private final RoleRepository roleRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final EntityManagerFactory entityManagerFactory;
+    private final SellerStatsStore sellerStatsStore;
+
+    @Value("${app.datagen.seed:42}")
+    private long seed;
+
+    @Value("${app.datagen.categories:2000}")
+    private int categories;
+
+    @Value("${app.datagen.products:1000000}")
+    private int products;
+
+    @Value("${app.datagen.users:100000}")
+    private int users;
+
+    @Value("${app.datagen.seller-ratio:0.01}")
+    private double sellerRatio;
+
+    @Value("${app.datagen.zipf-exponent:1.07}")
+    private double zipfExponent;
+
+    @Value("${app.datagen.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.datagen.threads:0}")
+    private int threads;
+
+    public SyntheticDataGenerator(DataSource dataSource, RoleRepository roleRepository, PasswordEncoder passwordEncoder,
+                                  EntityManagerFactory entityManagerFactory, SellerStatsStore sellerStatsStore) {
+        this.dataSource = dataSource;
+        this.roleRepository = roleRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.entityManagerFactory = entityManagerFactory;
+        this.sellerStatsStore = sellerStatsStore;
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        long start = System.currentTimeMillis();
+        int threadCount = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        long userRoleId = roleId(AppRole.ROLE_USER);
+        long sellerRoleId = roleId(AppRole.ROLE_SELLER);
+        // hashing once keeps BCrypt off the per-row path; every generated user shares the password "password"
+        String passwordHash = passwordEncoder.encode("password");
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(threadCount)) {
+            long[] categoryIds = insertCategories();
+            int sellerCount = Math.max(1, (int) (users * sellerRatio));
+            long[] userIds = runChunks(executor, users, (chunk, from, to) ->
+                    insertUsers(chunk, from, to, passwordHash, userRoleId, sellerRoleId, sellerCount));
+            long[] sellerIds = new long[Math.min(sellerCount, userIds.length)];
+            System.arraycopy(userIds, 0, sellerIds, 0, sellerIds.length);
+
+            ZipfSampler categorySampler = new ZipfSampler(categoryIds.length, zipfExponent);
+            ZipfSampler sellerSampler = new ZipfSampler(sellerIds.length, zipfExponent);
+            runChunks(executor, products, (chunk, from, to) ->
+                    insertProducts(chunk, from, to, categoryIds, categorySampler, sellerIds, sellerSampler));
+        }
+        // rows were written behind Hibernate's back, so no cached listing may survive
+        entityManagerFactory.getCache().unwrap(Cache.class).evictAllRegions();
+        // and no seller stats were maintained for them; rebuild now rather than at the first scheduled pass
+        sellerStatsStore.reconcile();
+        log.info("Generated {} categories, {} users and {} products in {} ms",
+                categories, users, products, System.currentTimeMillis() - start);
+    }
+
+    private long roleId(AppRole appRole) {
+        return roleRepository.findByRoleName(appRole)
+                .orElseGet(() -> roleRepository.save(new Role(appRole)))
+                .getRoleId();
+    }
+
+    private long[] insertCategories() throws SQLException {
+        SplittableRandom random = new SplittableRandom(seed);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "insert into categories (category_name) values (?)", Statement.RETURN_GENERATED_KEYS)) {
+            connection.setAutoCommit(false);
+            for (int i = 0; i < categories; i++) {
+                statement.setString(1, DEPARTMENTS[random.nextInt(DEPARTMENTS.length)] + " "
+                        + ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + i);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            long[] ids = generatedKeys(statement, categories);
+            connection.commit();
+            return ids;
+        }
+    }
+
+    private long[] insertUsers(int chunk, int from, int to, String passwordHash,
+                               long userRoleId, long sellerRoleId, int sellerCount) throws SQLException {
+        SplittableRandom random = chunkRandom(1, chunk);
+        int count = to - from;
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            long[] userIds;
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "insert into users (username, email, password, roles_mask) values (?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+                for (int i = from; i < to; i++) {
+                    statement.setString(1, "gen_user_" + i);
+                    statement.setString(2, "gen_user_" + i + "@example.com");
+                    statement.setString(3, passwordHash);
+                    statement.setInt(4, (i < sellerCount ? AppRole.ROLE_SELLER : AppRole.ROLE_USER).mask());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                userIds = generatedKeys(statement, count);
+            }
+            long[] addressIds;
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "insert into addresses (street, building_name, city, state, country, zip_code, address_hash) " +
+                            "values (?, ?, ?, ?, ?, ?, ?)",
+                    Statement.RETURN_GENERATED_KEYS)) {
+                for (int i = from; i < to; i++) {
+                    int city = random.nextInt(CITIES.length);
+                    // the user index as house number keeps every address distinct under the unique hash constraint
+                    String street = (i + 1) + " " + STREETS[random.nextInt(STREETS.length)];
+                    String buildingName = "Building " + (1 + random.nextInt(500));
+                    String zipCode = String.format("%05d", random.nextInt(100_000));
+                    statement.setString(1, street);
+                    statement.setString(2, buildingName);
+                    statement.setString(3, CITIES[city]);
+                    statement.setString(4, STATES[city]);
+                    statement.setString(5, "Canada");
+                    statement.setString(6, zipCode);
+                    statement.setString(7, AddressNormalizer.hash(street, buildingName, CITIES[city], STATES[city], "Canada", zipCode));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                addressIds = generatedKeys(statement, count);
+            }
+            try (PreparedStatement roles = connection.prepareStatement("insert into user_roles (user_id, role_id) values (?, ?)");
+                 PreparedStatement addresses = connection.prepareStatement("insert into user_addresses (user_id, address_id) values (?, ?)")) {
+                for (int i = 0; i < count; i++) {
+                    roles.setLong(1, userIds[i]);
+                    // the first users become the sellers that products are attributed to
+                    roles.setLong(2, from + i < sellerCount ? sellerRoleId : userRoleId);
+                    roles.addBatch();
+                    addresses.setLong(1, userIds[i]);
+                    addresses.setLong(2, addressIds[i]);
+                    addresses.addBatch();
+                }
+                roles.executeBatch();
+                addresses.executeBatch();
+            }
+            connection.commit();
+            return userIds;
+        }
+    }
+
+    private long[] insertProducts(int chunk, int from, int to, long[] categoryIds, ZipfSampler categorySampler,
+                                  long[] sellerIds, ZipfSampler sellerSampler) throws SQLException {
+        SplittableRandom random = chunkRandom(2, chunk);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "insert into products (product_name, product_description, image, quantity, price, discount, " +
+                             "special_price, category_id, seller_id) values (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            connection.setAutoCommit(false);
+            for (int i = from; i < to; i++) {
+                String noun = NOUNS[random.nextInt(NOUNS.length)];
+                String name = ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + noun + " " + i;
+                // log-normal prices: median around 33, with a long tail of expensive items
+                double price = Math.floor(Math.exp(3.5 + random.nextGaussian())) + 0.99;
+                double discount = random.nextInt(10) < 7 ? 0 : 5 * (1 + random.nextInt(12));
+                statement.setString(1, name);
+                statement.setString(2, "The " + name.toLowerCase() + ", built to last.");
+                statement.setString(3, "default.png");
+                statement.setInt(4, random.nextInt(20) == 0 ? 0 : random.nextInt(500));
+                statement.setDouble(5, price);
+                statement.setDouble(6, discount);
+                statement.setDouble(7, PriceUtils.specialPrice(price, discount));
+                statement.setLong(8, categoryIds[categorySampler.sample(random)]);
+                statement.setLong(9, sellerIds[sellerSampler.sample(random)]);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            connection.commit();
+            return new long[0];
+        }
+    }
+
+    /**
+     * Splits {@code total} rows into chunks of {@code batchSize}, runs them on the executor and
+     * returns the concatenated ids in row order.
+     */
+    private long[] runChunks(ExecutorService executor, int total, ChunkWriter writer) throws Exception {
+        List<Future<long[]>> chunks = new ArrayList<>();
+        for (int from = 0, chunk = 0; from < total; from += batchSize, chunk++) {
+            int start = from;
+            int end = Math.min(total, from + batchSize);
+            int index = chunk;
+            chunks.add(executor.submit(() -> writer.write(index, start, end)));
+        }
+        List<long[]> results = new ArrayList<>(chunks.size());
+        int length = 0;
+        for (Future<long[]> chunk : chunks) {
+            long[] ids = chunk.get();
+            results.add(ids);
+            length += ids.length;
+        }
+        long[] ids = new long[length];
+        int offset = 0;
+        for (long[] result : results) {
+            System.arraycopy(result, 0, ids, offset, result.length);
+            offset += result.length;
+        }
+        return ids;
+    }
+
+    private SplittableRandom chunkRandom(int table, int chunk) {
+        return new SplittableRandom(seed * 31 + table * 1_000_003L + chunk * 0x9E3779B97F4A7C15L);
+    }
+
+    private static long[] generatedKeys(Statement statement, int expected) throws SQLException {
+        long[] ids = new long[expected];
+        int i = 0;
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+            while (keys.next() && i < expected) {
+                ids[i++] = keys.getLong(1);
+            }
+        }
+        if (i != expected) {
+            throw new SQLException("Expected " + expected + " generated keys but got " + i);
+        }
+        return ids;
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter {
+        long[] write(int chunk, int from, int to) throws SQLException;
+    }
+}
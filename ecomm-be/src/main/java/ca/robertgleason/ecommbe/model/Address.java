@@ -1,6 +1,7 @@
 package ca.robertgleason.ecommbe.model;
 
 
+import ca.robertgleason.ecommbe.utilties.AddressNormalizer;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -13,7 +14,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "addresses")
+@Table(name = "addresses", uniqueConstraints = @UniqueConstraint(name = "uk_addresses_address_hash", columnNames = "address_hash"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -49,6 +50,10 @@ public class Address {
     @Size(min = 5, max = 10, message = "Zip code must be between 5 and 10 characters long")
     private String zipCode;
 
+    // see AddressNormalizer.hash; rows are shared by every user with the same address
+    @Column(name = "address_hash", length = 64)
+    private String addressHash;
+
 
     @ToString.Exclude
     @ManyToMany(mappedBy = "addresses")
@@ -62,5 +67,6 @@ public class Address {
         this.state = state;
         this.country = country;
         this.zipCode = zipCode;
+        this.addressHash = AddressNormalizer.hash(street, buildingName, city, state, country, zipCode);
     }
 }
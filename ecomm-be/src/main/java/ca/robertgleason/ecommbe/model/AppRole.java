@@ -1,7 +1,38 @@
 package ca.robertgleason.ecommbe.model;
 
+import java.util.Collection;
+import java.util.EnumSet;
+
+/**
+ * Roles are fixed, so a user's roles fit in an int: bit {@code ordinal()} is set for each role
+ * held. Only append new values; reordering would change the meaning of stored masks.
+ */
 public enum AppRole {
     ROLE_USER,
     ROLE_SELLER,
-    ROLE_ADMIN,
+    ROLE_ADMIN;
+
+    private static final AppRole[] VALUES = values();
+
+    public int mask() {
+        return 1 << ordinal();
+    }
+
+    public static int toMask(Collection<AppRole> roles) {
+        int mask = 0;
+        for (AppRole role : roles) {
+            mask |= role.mask();
+        }
+        return mask;
+    }
+
+    public static EnumSet<AppRole> fromMask(int mask) {
+        EnumSet<AppRole> roles = EnumSet.noneOf(AppRole.class);
+        for (AppRole role : VALUES) {
+            if ((mask & role.mask()) != 0) {
+                roles.add(role);
+            }
+        }
+        return roles;
+    }
 }
@@ -0,0 +1,29 @@
+package ca.robertgleason.ecommbe.model;
+
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Persisted snapshot of a user's cart. Active carts live in memory (see {@code CartStore}) and
+ * are written here in batches, so rows are keyed by the owning user rather than a surrogate id.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "carts")
+public class Cart {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    private Double totalPrice;
+
+    private Instant updatedAt;
+}
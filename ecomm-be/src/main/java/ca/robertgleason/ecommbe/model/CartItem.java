@@ -0,0 +1,31 @@
+package ca.robertgleason.ecommbe.model;
+
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of a persisted cart. The product is referenced by id only, so deleting a product is
+ * not blocked by carts that still contain it; such lines are dropped on the next reprice.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "cart_items", indexes = @Index(name = "idx_cart_items_user_id", columnList = "user_id"))
+public class CartItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long cartItemId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    private Long productId;
+    private String productName;
+    private Integer quantity;
+    private Double unitPrice;
+}
@@ -1,19 +1,31 @@
 package ca.robertgleason.ecommbe.model;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.SQLRestriction;
+
+import java.time.Instant;
 
 @Entity(name = "categories")
+@Table(indexes = @Index(name = "idx_categories_deleted_at", columnList = "deleted_at"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "category")
+@SQLRestriction("deleted_at is null")
 public class Category {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -22,4 +34,7 @@ public class Category {
     @NotBlank
     @Size(min = 5, message = "Category name must be at least 5 characters long")
     private String categoryName;
+
+    // set by deleteCategory; CatalogPurger removes the row once its products are gone
+    private Instant deletedAt;
 }
@@ -0,0 +1,31 @@
+package ca.robertgleason.ecommbe.model;
+
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A placed order. Rows are written in batches by {@code OrderPipeline}.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "orders", indexes = @Index(name = "idx_orders_user_id", columnList = "user_id"))
+public class Order {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long orderId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    private Instant orderDate;
+    private Double totalAmount;
+    private String orderStatus;
+}
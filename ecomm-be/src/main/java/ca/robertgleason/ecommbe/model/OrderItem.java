@@ -0,0 +1,31 @@
+package ca.robertgleason.ecommbe.model;
+
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of an order. Name and price are copied at placement time; the product is referenced
+ * by id only, so products can still be deleted after they were ordered.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "order_items", indexes = @Index(name = "idx_order_items_order_id", columnList = "order_id"))
+public class OrderItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long orderItemId;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    private Long productId;
+    private String productName;
+    private Integer quantity;
+    private Double unitPrice;
+}
@@ -8,13 +8,23 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.SQLRestriction;
+
+import java.time.Instant;
 
 @Entity
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_seller_product", columnList = "seller_id, product_id"),
+        @Index(name = "idx_products_deleted_at", columnList = "deleted_at")})
 @ToString
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "product")
+@SQLRestriction("deleted_at is null")
 public class Product {
 
     @Id
@@ -33,6 +43,9 @@ public class Product {
     private Double discount;
     private Double price;
 
+    // set by deleteProduct or deleteCategory; the row itself is removed later by CatalogPurger
+    private Instant deletedAt;
+
 
     @ManyToOne
     @JoinColumn(name = "category_id")
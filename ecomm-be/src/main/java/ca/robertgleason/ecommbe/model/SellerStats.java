@@ -0,0 +1,34 @@
+package ca.robertgleason.ecommbe.model;
+
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Per-seller catalog totals. Kept current by deltas applied in the same transaction as each
+ * product or stock change (see {@code SellerStatsStore}) and periodically recomputed from
+ * {@code products}, so reading a seller's dashboard never aggregates over their SKUs.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "seller_stats")
+public class SellerStats {
+
+    @Id
+    @Column(name = "seller_id")
+    private Long sellerId;
+
+    private Long productCount;
+
+    private Long totalStock;
+
+    private Double inventoryValue;
+
+    private Instant reconciledAt;
+}
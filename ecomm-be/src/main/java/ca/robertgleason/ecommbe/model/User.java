@@ -6,8 +6,10 @@ import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -37,9 +39,16 @@ public class User {
     @Size(max = 120)
     private String password;
 
+    // authoritative role storage, see AppRole; loading a user is a single-row read
+    @Column(name = "roles_mask", nullable = false)
+    @ColumnDefault("0")
+    private int rolesMask;
+
+    // kept in sync by setRoles for the join-table storage mode and for reporting queries
     @Getter
-    @Setter
-    @ManyToMany(fetch = FetchType.EAGER, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToMany(fetch = FetchType.LAZY, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     @JoinTable(name = "user_roles",
             joinColumns = @JoinColumn(name = "user_id"),
             inverseJoinColumns = @JoinColumn(name = "role_id"))
@@ -57,7 +66,8 @@ public class User {
     @ManyToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     @JoinTable(name = "user_addresses",
             joinColumns = @JoinColumn(name = "user_id"),
-            inverseJoinColumns = @JoinColumn(name = "address_id"))
+            inverseJoinColumns = @JoinColumn(name = "address_id"),
+            uniqueConstraints = @UniqueConstraint(name = "uk_user_addresses", columnNames = {"user_id", "address_id"}))
     private List<Address> addresses = new ArrayList<>();
 
     public User(String username, String email, String password) {
@@ -66,5 +76,14 @@ public class User {
         this.password = password;
     }
 
+    public void setRoles(Set<Role> roles) {
+        this.roles = roles;
+        this.rolesMask = AppRole.toMask(roles.stream().map(Role::getRoleName).toList());
+    }
+
+    public EnumSet<AppRole> getAppRoles() {
+        return AppRole.fromMask(rolesMask);
+    }
+
 
 }
@@ -0,0 +1,39 @@
+package ca.robertgleason.ecommbe.payload;
+
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AddressDTO {
+    private Long addressId;
+
+    @NotBlank
+    @Size(min = 5, message = "Street must be at least 5 characters long")
+    private String street;
+
+    @NotBlank
+    @Size(min = 5, message = "Building name must be at least 5 characters long")
+    private String buildingName;
+
+    @NotBlank
+    @Size(min = 3, message = "City must be at least 3 characters long")
+    private String city;
+
+    @NotBlank
+    @Size(min = 2, max = 2, message = "State must be exactly 2 characters long")
+    private String state;
+
+    @NotBlank
+    @Size(min = 2, message = "Country must be at least 2 characters long")
+    private String country;
+
+    @NotBlank
+    @Size(min = 5, max = 10, message = "Zip code must be between 5 and 10 characters long")
+    private String zipCode;
+}
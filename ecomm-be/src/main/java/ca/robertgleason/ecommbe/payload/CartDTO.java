@@ -0,0 +1,17 @@
+package ca.robertgleason.ecommbe.payload;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartDTO {
+    private Long userId;
+    private List<CartItemDTO> items;
+    private Double totalPrice;
+}
@@ -0,0 +1,17 @@
+package ca.robertgleason.ecommbe.payload;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartItemDTO {
+    private Long productId;
+    private String productName;
+    private Integer quantity;
+    private Double unitPrice;
+    private Double lineTotal;
+}
@@ -0,0 +1,21 @@
+package ca.robertgleason.ecommbe.payload;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderDTO {
+    private Long orderId;
+    private Long userId;
+    private List<OrderItemDTO> items;
+    // lines that could not be filled because stock ran out; they stay in the cart
+    private List<OrderItemDTO> rejectedItems;
+    private Double totalAmount;
+    private String orderStatus;
+}
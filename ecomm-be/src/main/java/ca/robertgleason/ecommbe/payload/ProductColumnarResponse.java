@@ -0,0 +1,71 @@
+package ca.robertgleason.ecommbe.payload;
+
+
+import ca.robertgleason.ecommbe.service.ImageVariant;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column-oriented form of {@link ProductResponse}: each product field is a parallel array, so
+ * field names are written once per page instead of once per product.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductColumnarResponse {
+    private List<Long> productId;
+    private List<String> productName;
+    private List<String> image;
+    private List<Integer> quantity;
+    private List<Double> price;
+    private List<Double> discount;
+    private List<Double> specialPrice;
+    private Map<String, List<String>> imageVariants;
+
+    private Integer pageNumber;
+    private Integer pageSize;
+    private Long totalElements;
+    private Integer totalPages;
+    private boolean lastPage;
+
+    public static ProductColumnarResponse from(ProductResponse response) {
+        List<ProductDTO> content = response.getContent() != null ? response.getContent() : List.of();
+        int size = content.size();
+        ProductColumnarResponse columnar = new ProductColumnarResponse();
+        columnar.setProductId(new ArrayList<>(size));
+        columnar.setProductName(new ArrayList<>(size));
+        columnar.setImage(new ArrayList<>(size));
+        columnar.setQuantity(new ArrayList<>(size));
+        columnar.setPrice(new ArrayList<>(size));
+        columnar.setDiscount(new ArrayList<>(size));
+        columnar.setSpecialPrice(new ArrayList<>(size));
+        columnar.setImageVariants(new LinkedHashMap<>());
+        for (ImageVariant variant : ImageVariant.values()) {
+            columnar.getImageVariants().put(variant.getKey(), new ArrayList<>(size));
+        }
+        for (ProductDTO product : content) {
+            columnar.getProductId().add(product.getProductId());
+            columnar.getProductName().add(product.getProductName());
+            columnar.getImage().add(product.getImage());
+            columnar.getQuantity().add(product.getQuantity());
+            columnar.getPrice().add(product.getPrice());
+            columnar.getDiscount().add(product.getDiscount());
+            columnar.getSpecialPrice().add(product.getSpecialPrice());
+            // every column gets an entry per product, or later values would pair with the wrong productId
+            Map<String, String> variants = product.getImageVariants() != null ? product.getImageVariants() : Map.of();
+            columnar.getImageVariants().forEach((variant, fileNames) -> fileNames.add(variants.get(variant)));
+        }
+        columnar.setPageNumber(response.getPageNumber());
+        columnar.setPageSize(response.getPageSize());
+        columnar.setTotalElements(response.getTotalElements());
+        columnar.setTotalPages(response.getTotalPages());
+        columnar.setLastPage(response.isLastPage());
+        return columnar;
+    }
+}
@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Map;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -16,6 +18,11 @@ public class ProductDTO {
     private Double price;
     private Double discount;
     private Double specialPrice;
+    private Map<String, String> imageVariants;
 
-  
+    // used by the JPQL constructor projection in ProductRepository
+    public ProductDTO(Long productId, String productName, String image, Integer quantity,
+                      Double price, Double discount, Double specialPrice) {
+        this(productId, productName, image, quantity, price, discount, specialPrice, null);
+    }
 }
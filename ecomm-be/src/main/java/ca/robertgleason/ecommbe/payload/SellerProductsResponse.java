@@ -0,0 +1,22 @@
+package ca.robertgleason.ecommbe.payload;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One keyset page of a seller's products. Pass {@code nextAfterId} back as {@code afterId} to
+ * fetch the next page; it is null on the last page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SellerProductsResponse {
+    private List<ProductDTO> content;
+    private Integer pageSize;
+    private Long nextAfterId;
+    private boolean lastPage;
+}
@@ -0,0 +1,19 @@
+package ca.robertgleason.ecommbe.payload;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SellerStatsDTO {
+    private Long sellerId;
+    private Long productCount;
+    private Long totalStock;
+    private Double inventoryValue;
+    private Instant reconciledAt;
+}
@@ -0,0 +1,23 @@
+package ca.robertgleason.ecommbe.repository;
+
+import ca.robertgleason.ecommbe.model.Address;
+import ca.robertgleason.ecommbe.payload.AddressDTO;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AddressRepository extends JpaRepository<Address, Long> {
+
+    @Query("select a.addressId from Address a where a.addressHash = :addressHash")
+    Optional<Long> findIdByAddressHash(@Param("addressHash") String addressHash);
+
+    // the whole address book in one query over the join table, without loading the User or its collections
+    @Query("select new ca.robertgleason.ecommbe.payload.AddressDTO(a.addressId, a.street, a.buildingName, a.city, " +
+            "a.state, a.country, a.zipCode) from User u join u.addresses a where u.userId = :userId order by a.addressId")
+    List<AddressDTO> findAddressDTOsByUserId(@Param("userId") Long userId);
+}
@@ -1,15 +1,34 @@
 package ca.robertgleason.ecommbe.repository;
 
 import ca.robertgleason.ecommbe.model.Category;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+
 
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
 
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Category findByCategoryName(String categoryName);
 
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Page<Category> findAll(Pageable pageable);
+
+    // deleteCategory marks the category's products in the same transaction; CatalogPurger removes the rows
+    @Modifying
+    @Query("update categories c set c.deletedAt = :deletedAt where c.categoryId = :categoryId and c.deletedAt is null")
+    int softDelete(@Param("categoryId") Long categoryId, @Param("deletedAt") Instant deletedAt);
 
 }
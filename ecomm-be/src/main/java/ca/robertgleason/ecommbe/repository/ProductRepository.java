@@ -2,19 +2,66 @@ package ca.robertgleason.ecommbe.repository;
 
 import ca.robertgleason.ecommbe.model.Category;
 import ca.robertgleason.ecommbe.model.Product;
+import ca.robertgleason.ecommbe.payload.ProductDTO;
+import jakarta.persistence.QueryHint;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    // query cache region of the stock-carrying projection; evicted by code that changes products through JDBC
+    String LOOKUP_QUERY_REGION = "product-lookups";
+
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Page<Product> findAll(Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Page<Product> findByCategoryOrderByPriceAsc(Category category, Pageable pageDetails);
 
+    // free-text keywords have unbounded cardinality, so this one deliberately stays out of the query cache
     Page<Product> findByProductNameLikeIgnoreCase(String keyword, Pageable pageDetails);
 
+    @Query("select p.image from Product p where p.image in :images")
+    List<String> findReferencedImages(@Param("images") Collection<String> images);
+
+    // scalar projection: one IN query without loading entities; the query cache stores the rows themselves
+    @Query("select new ca.robertgleason.ecommbe.payload.ProductDTO(p.productId, p.productName, p.image, p.quantity, " +
+            "p.price, p.discount, p.specialPrice) from Product p where p.productId in :ids")
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = LOOKUP_QUERY_REGION)})
+    List<ProductDTO> findProductDTOsByIds(@Param("ids") Collection<Long> ids);
+
+    // keyset rather than offset paging: a seller with 100k SKUs pays the same for the last page as for the first
+    @Query("select new ca.robertgleason.ecommbe.payload.ProductDTO(p.productId, p.productName, p.image, p.quantity, " +
+            "p.price, p.discount, p.specialPrice) from Product p where p.user.userId = :sellerId and p.productId > :afterId " +
+            "order by p.productId")
+    List<ProductDTO> findSellerProductDTOs(@Param("sellerId") Long sellerId, @Param("afterId") Long afterId, Limit limit);
+
+    // a bulk update, so Hibernate also drops the cached products and invalidates cached product queries
+    @Modifying
+    @Query("update Product p set p.deletedAt = :deletedAt where p.productId = :productId and p.deletedAt is null")
+    int softDelete(@Param("productId") Long productId, @Param("deletedAt") Instant deletedAt);
+
+    @Modifying
+    @Query("update Product p set p.deletedAt = :deletedAt where p.category.categoryId = :categoryId and p.deletedAt is null")
+    int softDeleteByCategory(@Param("categoryId") Long categoryId, @Param("deletedAt") Instant deletedAt);
+
     Product findByProductName(@NotBlank @Size(min = 3, message = "Product name must be at least 3 characters long") String productName);
 }
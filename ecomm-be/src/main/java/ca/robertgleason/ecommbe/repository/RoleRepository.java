@@ -2,12 +2,16 @@ package ca.robertgleason.ecommbe.repository;
 
 import ca.robertgleason.ecommbe.model.AppRole;
 import ca.robertgleason.ecommbe.model.Role;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.Optional;
 
 public interface RoleRepository extends JpaRepository<Role, Long> {
 
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Role> findByRoleName(AppRole appRole);
 }
@@ -0,0 +1,9 @@
+package ca.robertgleason.ecommbe.repository;
+
+import ca.robertgleason.ecommbe.model.SellerStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SellerStatsRepository extends JpaRepository<SellerStats, Long> {
+}
@@ -7,6 +7,8 @@ import jakarta.validation.constraints.Size;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 
@@ -14,6 +16,8 @@ import java.util.Optional;
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
 
+    List<User> findByUsernameIn(Collection<String> usernames);
+
     Boolean existsByUsername(@NotBlank @Size(min = 3, max = 20) String username);
 
     Boolean existsByEmail(@NotBlank @Size(max = 50) @Email String email);
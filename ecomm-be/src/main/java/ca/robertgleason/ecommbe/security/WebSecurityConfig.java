@@ -25,7 +25,16 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
-
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @Configuration
@@ -107,63 +116,50 @@ public class WebSecurityConfig {
     }
 
     @Bean
-    public CommandLineRunner initData(RoleRepository roleRepository, UserRepository userRepository, PasswordEncoder passwordEncoder) {
-        return args -> {
-            // Retrieve or create roles
-            Role userRole = roleRepository.findByRoleName(AppRole.ROLE_USER)
-                    .orElseGet(() -> {
-                        Role newUserRole = new Role(AppRole.ROLE_USER);
-                        return roleRepository.save(newUserRole);
-                    });
-
-            Role sellerRole = roleRepository.findByRoleName(AppRole.ROLE_SELLER)
-                    .orElseGet(() -> {
-                        Role newSellerRole = new Role(AppRole.ROLE_SELLER);
-                        return roleRepository.save(newSellerRole);
-                    });
-
-            Role adminRole = roleRepository.findByRoleName(AppRole.ROLE_ADMIN)
-                    .orElseGet(() -> {
-                        Role newAdminRole = new Role(AppRole.ROLE_ADMIN);
-                        return roleRepository.save(newAdminRole);
-                    });
-
-            Set<Role> userRoles = Set.of(userRole);
-            Set<Role> sellerRoles = Set.of(sellerRole);
-            Set<Role> adminRoles = Set.of(userRole, sellerRole, adminRole);
-
-
-            // Create users if not already present
-            if (!userRepository.existsByUsername("user1")) {
-                User user1 = new User("user1", "user1@example.com", passwordEncoder.encode("password1"));
-                userRepository.save(user1);
-            }
-
-            if (!userRepository.existsByUsername("seller1")) {
-                User seller1 = new User("seller1", "seller1@example.com", passwordEncoder.encode("password2"));
-                userRepository.save(seller1);
-            }
-
-            if (!userRepository.existsByUsername("admin")) {
-                User admin = new User("admin", "admin@example.com", passwordEncoder.encode("adminPass"));
-                userRepository.save(admin);
-            }
-
-            // Update roles for existing users
-            userRepository.findByUsername("user1").ifPresent(user -> {
-                user.setRoles(userRoles);
-                userRepository.save(user);
-            });
-
-            userRepository.findByUsername("seller1").ifPresent(seller -> {
-                seller.setRoles(sellerRoles);
-                userRepository.save(seller);
-            });
-
-            userRepository.findByUsername("admin").ifPresent(admin -> {
-                admin.setRoles(adminRoles);
-                userRepository.save(admin);
+    public CommandLineRunner initData(RoleRepository roleRepository, UserRepository userRepository, PasswordEncoder passwordEncoder,
+                                      PlatformTransactionManager transactionManager) {
+        // one write transaction, so the existence checks read the primary rather than a lagging replica
+        return args -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            // Retrieve all roles in one query and create the missing ones in one batch
+            Map<AppRole, Role> roles = new EnumMap<>(AppRole.class);
+            roleRepository.findAll().forEach(role -> roles.put(role.getRoleName(), role));
+            List<Role> missingRoles = Arrays.stream(AppRole.values())
+                    .filter(appRole -> !roles.containsKey(appRole))
+                    .map(Role::new)
+                    .toList();
+            roleRepository.saveAll(missingRoles).forEach(role -> roles.put(role.getRoleName(), role));
+
+            Role userRole = roles.get(AppRole.ROLE_USER);
+            Role sellerRole = roles.get(AppRole.ROLE_SELLER);
+            Role adminRole = roles.get(AppRole.ROLE_ADMIN);
+
+            Map<String, Set<Role>> seedRoles = Map.of(
+                    "user1", Set.of(userRole),
+                    "seller1", Set.of(sellerRole),
+                    "admin", Set.of(userRole, sellerRole, adminRole));
+            Map<String, String[]> seedCredentials = Map.of(
+                    "user1", new String[]{"user1@example.com", "password1"},
+                    "seller1", new String[]{"seller1@example.com", "password2"},
+                    "admin", new String[]{"admin@example.com", "adminPass"});
+
+            // Load existing seed users in one query; only new users pay for BCrypt
+            Map<String, User> users = new HashMap<>();
+            userRepository.findByUsernameIn(seedRoles.keySet()).forEach(user -> users.put(user.getUsername(), user));
+
+            List<User> changed = new ArrayList<>();
+            seedRoles.forEach((username, expectedRoles) -> {
+                User user = users.get(username);
+                if (user == null) {
+                    String[] credentials = seedCredentials.get(username);
+                    user = new User(username, credentials[0], passwordEncoder.encode(credentials[1]));
+                } else if (user.getRolesMask() == AppRole.toMask(expectedRoles.stream().map(Role::getRoleName).toList())) {
+                    // the mask is authoritative; comparing the lazy user_roles set would load it for every seed user
+                    return;
+                }
+                user.setRoles(new HashSet<>(expectedRoles));
+                changed.add(user);
             });
-        };
+            userRepository.saveAll(changed);
+        });
     }
 }
@@ -1,5 +1,6 @@
 package ca.robertgleason.ecommbe.security.jwt;
 
+import ca.robertgleason.ecommbe.config.RequestLoggingFilter;
 import ca.robertgleason.ecommbe.security.services.UserDetailsServiceImpl;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -32,31 +33,24 @@ public class AuthTokenFilter extends OncePerRequestFilter {
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
-        logger.info("AuthTokenFilter called for URI: {}", request.getRequestURI());
         try {
             String jwt = parseJwt(request);
             if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
                 String username = jwtUtils.getUserNameFromJwtToken(jwt);
-                logger.info("Authenticated user: {}", username);
                 UserDetails userDetails = userDetailsServiceImpl.loadUserByUsername(username);
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authentication);
-                logger.info("Setting authentication in security context for user: {}", username);
-            } else {
-                logger.warn("Invalid JWT token or token is null");
+                request.setAttribute(RequestLoggingFilter.USERNAME_ATTRIBUTE, username);
             }
         } catch (Exception e) {
             logger.error("Error in AuthTokenFilter: {}", e.getMessage());
         }
         filterChain.doFilter(request, response);
-        logger.info("AuthTokenFilter completed for URI: {}", request.getRequestURI());
     }
 
     private String parseJwt(HttpServletRequest request) {
-        String jwt = jwtUtils.getJwtFromCookies(request);
-        logger.info("AuthTokenFilter.java: {}", jwt);
-        return jwt;
+        return jwtUtils.getJwtFromCookies(request);
     }
 }
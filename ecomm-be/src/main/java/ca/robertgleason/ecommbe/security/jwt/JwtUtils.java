@@ -7,6 +7,7 @@ import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.annotation.Timed;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
@@ -44,6 +45,7 @@ public class JwtUtils {
     }
 
 
+    @Timed(value = "jwt.generate", description = "JWT generation")
     public ResponseCookie generateJwtCookie(UserDetailsImpl userPrincipal) {
         String jwt = generateTokenFromUsername(userPrincipal.getUsername());
         return ResponseCookie.from(jwtCookie, jwt)
@@ -60,6 +62,7 @@ public class JwtUtils {
     }
 
 
+    @Timed(value = "jwt.generate", description = "JWT generation")
     public String generateTokenFromUsername(String username) {
         return Jwts.builder()
                 .subject(username)
@@ -69,6 +72,7 @@ public class JwtUtils {
                 .compact();
     }
 
+    @Timed(value = "jwt.parse", description = "JWT subject extraction")
     public String getUserNameFromJwtToken(String token) {
         return Jwts.parser()
                 .verifyWith((SecretKey) key())
@@ -80,9 +84,9 @@ public class JwtUtils {
         return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
     }
 
+    @Timed(value = "jwt.validate", description = "JWT signature and expiry validation")
     public boolean validateJwtToken(String authToken) {
         try {
-            System.out.println("Validate");
             Jwts.parser().verifyWith((SecretKey) key()).build().parseSignedClaims(authToken);
             return true;
         } catch (MalformedJwtException e) {
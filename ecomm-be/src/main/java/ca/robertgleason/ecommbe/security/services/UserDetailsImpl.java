@@ -1,5 +1,7 @@
 package ca.robertgleason.ecommbe.security.services;
 
+import ca.robertgleason.ecommbe.model.AppRole;
+import ca.robertgleason.ecommbe.model.Role;
 import ca.robertgleason.ecommbe.model.User;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
@@ -9,10 +11,10 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.io.Serial;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 
 @Data
@@ -38,20 +40,53 @@ public class UserDetailsImpl implements UserDetails {
         this.authorities = authorities;
     }
 
+    // one shared, immutable authority list per possible role mask, so building a principal allocates none
+    private static final List<List<GrantedAuthority>> AUTHORITIES_BY_MASK = authoritiesByMask();
+
     public static UserDetailsImpl build(User user) {
-        List<GrantedAuthority> authorities = user.getRoles().stream()
-                .map(role -> new SimpleGrantedAuthority(role.getRoleName().name()))
-                .collect(Collectors.toList());
+        return new UserDetailsImpl(
+                user.getUserId(),
+                user.getUsername(),
+                user.getEmail(),
+                user.getPassword(),
+                AUTHORITIES_BY_MASK.get(user.getRolesMask() & (AUTHORITIES_BY_MASK.size() - 1))
+        );
+    }
 
+    /**
+     * Builds authorities from the {@code user_roles} join table instead of the mask; used by the
+     * {@code join-table} role storage mode and requires an open session.
+     */
+    public static UserDetailsImpl buildFromRoleTable(User user) {
+        int mask = AppRole.toMask(user.getRoles().stream().map(Role::getRoleName).toList());
         return new UserDetailsImpl(
                 user.getUserId(),
                 user.getUsername(),
                 user.getEmail(),
                 user.getPassword(),
-                authorities
+                AUTHORITIES_BY_MASK.get(mask)
         );
     }
 
+    private static List<List<GrantedAuthority>> authoritiesByMask() {
+        AppRole[] roles = AppRole.values();
+        List<GrantedAuthority> constants = new ArrayList<>(roles.length);
+        for (AppRole role : roles) {
+            constants.add(new SimpleGrantedAuthority(role.name()));
+        }
+        List<List<GrantedAuthority>> byMask = new ArrayList<>(1 << roles.length);
+        for (int mask = 0; mask < 1 << roles.length; mask++) {
+            List<GrantedAuthority> authorities = new ArrayList<>();
+            for (AppRole role : roles) {
+                if ((mask & role.mask()) != 0) {
+                    authorities.add(constants.get(role.ordinal()));
+                }
+            }
+            byMask.add(List.copyOf(authorities));
+        }
+        return List.copyOf(byMask);
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return authorities;
@@ -3,6 +3,7 @@ package ca.robertgleason.ecommbe.security.services;
 import ca.robertgleason.ecommbe.model.User;
 import ca.robertgleason.ecommbe.repository.UserRepository;
 import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -15,6 +16,10 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 
     UserRepository userRepository;
 
+    // "bitmask" reads roles from users.roles_mask; "join-table" still goes through user_roles
+    @Value("${app.security.roles-storage:bitmask}")
+    private String rolesStorage;
+
     public UserDetailsServiceImpl(UserRepository userRepository) {
         this.userRepository = userRepository;
     }
@@ -24,6 +29,9 @@ public class UserDetailsServiceImpl implements UserDetailsService {
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + username));
+        if ("join-table".equals(rolesStorage)) {
+            return UserDetailsImpl.buildFromRoleTable(user);
+        }
         return UserDetailsImpl.build(user);
     }
 }
@@ -0,0 +1,15 @@
+package ca.robertgleason.ecommbe.service;
+
+import ca.robertgleason.ecommbe.payload.AddressDTO;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+public interface AddressService {
+    AddressDTO addAddress(Long userId, AddressDTO addressDTO);
+
+    List<AddressDTO> getUserAddresses(Long userId);
+
+    AddressDTO removeAddress(Long userId, Long addressId);
+}
@@ -0,0 +1,94 @@
+package ca.robertgleason.ecommbe.service;
+
+import ca.robertgleason.ecommbe.excepetions.ResourceNotFoundException;
+import ca.robertgleason.ecommbe.model.Address;
+import ca.robertgleason.ecommbe.payload.AddressDTO;
+import ca.robertgleason.ecommbe.repository.AddressRepository;
+import ca.robertgleason.ecommbe.utilties.AddressNormalizer;
+import ca.robertgleason.ecommbe.utilties.SavepointUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.modelmapper.ModelMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Addresses are stored once and shared: a new address is normalized, hashed, and linked to the
+ * existing row with the same hash if there is one. Both writes are plain JDBC so that adding an
+ * address never loads the user's address collection. Each is a {@code merge} that inserts only
+ * when the key is missing, in the caller's transaction. Concurrent requests can still both find the
+ * key missing; the unique constraints on the hash and on the link make the later one fail, and it
+ * rolls back to a savepoint and uses the row the other one committed.
+ */
+@Service
+public class AddressServiceImpl implements AddressService {
+
+    private final AddressRepository addressRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ModelMapper modelMapper;
+    private final MeterRegistry meterRegistry;
+
+    public AddressServiceImpl(AddressRepository addressRepository, JdbcTemplate jdbcTemplate, ModelMapper modelMapper,
+                              MeterRegistry meterRegistry) {
+        this.addressRepository = addressRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.modelMapper = modelMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    @Transactional
+    public AddressDTO addAddress(Long userId, AddressDTO addressDTO) {
+        String street = AddressNormalizer.clean(addressDTO.getStreet());
+        String buildingName = AddressNormalizer.clean(addressDTO.getBuildingName());
+        String city = AddressNormalizer.clean(addressDTO.getCity());
+        String state = AddressNormalizer.clean(addressDTO.getState()).toUpperCase(Locale.ROOT);
+        String country = AddressNormalizer.clean(addressDTO.getCountry());
+        String zipCode = AddressNormalizer.cleanZipCode(addressDTO.getZipCode());
+        String hash = AddressNormalizer.hash(street, buildingName, city, state, country, zipCode);
+
+        int[] inserted = new int[1];
+        // losing the race means another request committed the same address; its row is just as good
+        SavepointUtils.runUnlessDuplicateKey(jdbcTemplate, () -> inserted[0] = jdbcTemplate.update(
+                "merge into addresses a using (values (cast(? as varchar))) as n(address_hash) " +
+                        "on a.address_hash = n.address_hash " +
+                        "when not matched then insert (street, building_name, city, state, country, zip_code, address_hash) " +
+                        "values (?, ?, ?, ?, ?, ?, n.address_hash)",
+                hash, street, buildingName, city, state, country, zipCode));
+        meterRegistry.counter("addresses.saved", "outcome", inserted[0] > 0 ? "created" : "reused").increment();
+        Long addressId = addressRepository.findIdByAddressHash(hash)
+                .orElseThrow(() -> new IllegalStateException("Address row missing after merge"));
+
+        // likewise a concurrent request from the same user may have linked it first
+        SavepointUtils.runUnlessDuplicateKey(jdbcTemplate, () -> jdbcTemplate.update(
+                "merge into user_addresses l using (values (cast(? as bigint), cast(? as bigint))) " +
+                        "as n(user_id, address_id) on l.user_id = n.user_id and l.address_id = n.address_id " +
+                        "when not matched then insert (user_id, address_id) values (n.user_id, n.address_id)",
+                userId, addressId));
+        Address address = addressRepository.findById(addressId)
+                .orElseThrow(() -> new ResourceNotFoundException("Address", "addressId", addressId));
+        return modelMapper.map(address, AddressDTO.class);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<AddressDTO> getUserAddresses(Long userId) {
+        return addressRepository.findAddressDTOsByUserId(userId);
+    }
+
+    @Override
+    @Transactional
+    public AddressDTO removeAddress(Long userId, Long addressId) {
+        Address address = addressRepository.findById(addressId)
+                .orElseThrow(() -> new ResourceNotFoundException("Address", "addressId", addressId));
+        // only the link goes; the row may be in other users' address books
+        int removed = jdbcTemplate.update("delete from user_addresses where user_id = ? and address_id = ?", userId, addressId);
+        if (removed == 0) {
+            throw new ResourceNotFoundException("Address", "addressId", addressId);
+        }
+        return modelMapper.map(address, AddressDTO.class);
+    }
+}
@@ -0,0 +1,15 @@
+package ca.robertgleason.ecommbe.service;
+
+import ca.robertgleason.ecommbe.payload.CartDTO;
+import org.springframework.stereotype.Service;
+
+@Service
+public interface CartService {
+    CartDTO getCart(Long userId);
+
+    CartDTO addProduct(Long userId, Long productId, Integer quantity);
+
+    CartDTO updateProductQuantity(Long userId, Long productId, Integer quantity);
+
+    CartDTO removeProduct(Long userId, Long productId);
+}
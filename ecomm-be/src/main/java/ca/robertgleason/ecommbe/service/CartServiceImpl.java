@@ -0,0 +1,155 @@
+package ca.robertgleason.ecommbe.service;
+
+import ca.robertgleason.ecommbe.excepetions.APIException;
+import ca.robertgleason.ecommbe.excepetions.ResourceNotFoundException;
+import ca.robertgleason.ecommbe.payload.CartDTO;
+import ca.robertgleason.ecommbe.payload.CartItemDTO;
+import ca.robertgleason.ecommbe.payload.ProductDTO;
+import ca.robertgleason.ecommbe.repository.ProductRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Cart operations on top of {@link CartStore}. Product lookups use the cached id projection and
+ * happen before the cart's stripe is taken, so no database call is made while holding a lock.
+ */
+@Service
+public class CartServiceImpl implements CartService {
+
+    private final CartStore cartStore;
+    private final ProductRepository productRepository;
+
+    public CartServiceImpl(CartStore cartStore, ProductRepository productRepository) {
+        this.cartStore = cartStore;
+        this.productRepository = productRepository;
+    }
+
+    @Override
+    public CartDTO getCart(Long userId) {
+        List<Long> productIds = cartStore.read(userId, cart -> List.copyOf(cart.lines().keySet()));
+        if (productIds.isEmpty()) {
+            return cartStore.read(userId, this::toDTO);
+        }
+
+        // reprice every line from the current specialPrice; products deleted since are dropped
+        Map<Long, ProductDTO> products = new HashMap<>();
+        productRepository.findProductDTOsByIds(productIds).forEach(product -> products.put(product.getProductId(), product));
+        // only a cart whose prices actually moved is marked dirty, so viewing a cart stays write-free
+        CartDTO unchanged = cartStore.read(userId, cart -> needsReprice(cart, productIds, products) ? null : toDTO(cart));
+        if (unchanged != null) {
+            return unchanged;
+        }
+        return cartStore.update(userId, cart -> {
+            cart.lines().values().removeIf(line -> productIds.contains(line.productId()) && !products.containsKey(line.productId()));
+            cart.lines().values().forEach(line -> {
+                ProductDTO product = products.get(line.productId());
+                if (product != null) {
+                    line.reprice(product.getProductName(), unitPrice(product));
+                }
+            });
+            return toDTO(cart);
+        });
+    }
+
+    @Override
+    public CartDTO addProduct(Long userId, Long productId, Integer quantity) {
+        if (quantity == null || quantity <= 0) {
+            throw new APIException("Quantity must be greater than 0");
+        }
+        ProductDTO product = findProduct(productId);
+        return cartStore.update(userId, cart -> {
+            CartStore.CartLine line = cart.lines().get(productId);
+            int newQuantity = (line == null ? 0 : line.quantity()) + quantity;
+            checkStock(product, newQuantity);
+            if (line == null) {
+                cart.lines().put(productId, new CartStore.CartLine(productId, product.getProductName(), newQuantity, unitPrice(product)));
+            } else {
+                line.setQuantity(newQuantity);
+                line.reprice(product.getProductName(), unitPrice(product));
+            }
+            return toDTO(cart);
+        });
+    }
+
+    @Override
+    public CartDTO updateProductQuantity(Long userId, Long productId, Integer quantity) {
+        if (quantity == null || quantity < 0) {
+            throw new APIException("Quantity must not be negative");
+        }
+        if (quantity == 0) {
+            return removeProduct(userId, productId);
+        }
+        ProductDTO product = findProduct(productId);
+        checkStock(product, quantity);
+        return cartStore.update(userId, cart -> {
+            CartStore.CartLine line = cart.lines().get(productId);
+            if (line == null) {
+                throw new ResourceNotFoundException("CartItem", "productId", productId);
+            }
+            line.setQuantity(quantity);
+            line.reprice(product.getProductName(), unitPrice(product));
+            return toDTO(cart);
+        });
+    }
+
+    @Override
+    public CartDTO removeProduct(Long userId, Long productId) {
+        return cartStore.update(userId, cart -> {
+            if (cart.lines().remove(productId) == null) {
+                throw new ResourceNotFoundException("CartItem", "productId", productId);
+            }
+            return toDTO(cart);
+        });
+    }
+
+    private static boolean needsReprice(CartStore.CartState cart, List<Long> productIds, Map<Long, ProductDTO> products) {
+        for (CartStore.CartLine line : cart.lines().values()) {
+            ProductDTO product = products.get(line.productId());
+            if (product == null) {
+                if (productIds.contains(line.productId())) {
+                    return true;
+                }
+            } else if (line.unitPrice() != unitPrice(product) || !Objects.equals(line.productName(), product.getProductName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ProductDTO findProduct(Long productId) {
+        List<ProductDTO> products = productRepository.findProductDTOsByIds(List.of(productId));
+        if (products.isEmpty()) {
+            throw new ResourceNotFoundException("Product", "productId", productId);
+        }
+        return products.get(0);
+    }
+
+    private static void checkStock(ProductDTO product, int quantity) {
+        if (product.getQuantity() == null || product.getQuantity() < quantity) {
+            throw new APIException("Please, make an order of the " + product.getProductName()
+                    + " less than or equal to the quantity " + product.getQuantity() + ".");
+        }
+    }
+
+    private static double unitPrice(ProductDTO product) {
+        if (product.getSpecialPrice() != null) {
+            return product.getSpecialPrice();
+        }
+        return product.getPrice() != null ? product.getPrice() : 0;
+    }
+
+    private CartDTO toDTO(CartStore.CartState cart) {
+        List<CartItemDTO> items = new ArrayList<>(cart.lines().size());
+        double total = 0;
+        for (CartStore.CartLine line : cart.lines().values()) {
+            items.add(new CartItemDTO(line.productId(), line.productName(), line.quantity(), line.unitPrice(), line.lineTotal()));
+            total += line.lineTotal();
+        }
+        return new CartDTO(cart.userId(), items, total);
+    }
+}
@@ -0,0 +1,345 @@
+package ca.robertgleason.ecommbe.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * In-memory home of active carts with write-behind persistence.
+ * <p>
+ * Carts are guarded by a fixed array of lock stripes indexed by user id, so unrelated users
+ * never contend and a cart needs no lock object of its own. Every mutation bumps the cart's
+ * version and marks it dirty; {@link #flush()} periodically writes dirty carts to
+ * {@code carts}/{@code cart_items} in JDBC batches within one transaction. A cart is only evicted
+ * once its latest version is persisted, and it is restored from the database on next access, which
+ * also covers carts written before a restart. The restore query runs without the stripe held, so a
+ * slow load never blocks the other users hashed to it.
+ */
+@Component
+public class CartStore {
+
+    private static final Logger log = LoggerFactory.getLogger(CartStore.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ReentrantLock[] stripes;
+    // evictions per stripe, guarded by the stripe; tells a restore that the database moved on meanwhile
+    private final long[] stripeEvictions;
+    private final Map<Long, CartState> carts = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private final Timer flushTimer;
+    private final Counter flushedCarts;
+    private final Counter restoredCarts;
+    private final Counter evictedCarts;
+
+    @Value("${app.cart.idle-eviction:PT30M}")
+    private Duration idleEviction;
+
+    @Value("${app.cart.max-resident:100000}")
+    private int maxResident;
+
+    public CartStore(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                     @Value("${app.cart.lock-stripes:64}") int lockStripes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // a power of two lets the stripe index be a mask instead of a modulo
+        this.stripes = new ReentrantLock[Integer.highestOneBit(Math.max(1, lockStripes - 1)) << 1];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.stripeEvictions = new long[stripes.length];
+        this.flushTimer = meterRegistry.timer("cart.flush");
+        this.flushedCarts = meterRegistry.counter("cart.flush.carts");
+        this.restoredCarts = meterRegistry.counter("cart.restored");
+        this.evictedCarts = meterRegistry.counter("cart.evicted");
+        meterRegistry.gaugeMapSize("cart.resident", Tags.empty(), carts);
+        meterRegistry.gaugeCollectionSize("cart.dirty", Tags.empty(), dirty);
+    }
+
+    /**
+     * Runs {@code action} against the user's cart while holding its stripe. {@code action} must
+     * not block or do I/O; anything it returns must be a copy, not a view of the cart.
+     */
+    public <T> T read(Long userId, Function<CartState, T> action) {
+        int stripe = stripeIndex(userId);
+        CartState cart = lockResident(userId, stripe);
+        try {
+            cart.lastAccessNanos = System.nanoTime();
+            return action.apply(cart);
+        } finally {
+            stripes[stripe].unlock();
+        }
+    }
+
+    /**
+     * Like {@link #read} but marks the cart dirty so the next flush persists it.
+     */
+    public <T> T update(Long userId, Function<CartState, T> action) {
+        int stripe = stripeIndex(userId);
+        CartState cart = lockResident(userId, stripe);
+        try {
+            cart.lastAccessNanos = System.nanoTime();
+            T result = action.apply(cart);
+            cart.version++;
+            dirty.add(userId);
+            return result;
+        } finally {
+            stripes[stripe].unlock();
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.cart.flush-interval-ms:5000}", fixedDelayString = "${app.cart.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        flushTimer.record(() -> {
+            List<CartSnapshot> snapshots = new ArrayList<>();
+            for (Long userId : dirty) {
+                dirty.remove(userId);
+                CartSnapshot snapshot = snapshot(userId);
+                if (snapshot != null) {
+                    snapshots.add(snapshot);
+                }
+            }
+            if (!snapshots.isEmpty()) {
+                persist(snapshots);
+            }
+            evictIdle();
+        });
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private CartSnapshot snapshot(Long userId) {
+        ReentrantLock lock = stripeFor(userId);
+        lock.lock();
+        try {
+            CartState cart = carts.get(userId);
+            if (cart == null || cart.version == cart.persistedVersion) {
+                return null;
+            }
+            return new CartSnapshot(userId, cart.version, cart.lines.values().stream().map(CartLine::copy).toList());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void persist(List<CartSnapshot> snapshots) {
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> cartKeys = new ArrayList<>(snapshots.size());
+        List<Object[]> cartRows = new ArrayList<>(snapshots.size());
+        List<Object[]> itemRows = new ArrayList<>();
+        for (CartSnapshot snapshot : snapshots) {
+            cartKeys.add(new Object[]{snapshot.userId()});
+            double total = 0;
+            for (CartLine line : snapshot.lines()) {
+                total += line.lineTotal();
+                itemRows.add(new Object[]{snapshot.userId(), line.productId, line.productName, line.quantity, line.unitPrice});
+            }
+            cartRows.add(new Object[]{snapshot.userId(), total, now});
+        }
+        try {
+            // delete + insert keeps the statement set portable and makes every flush idempotent
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate("delete from cart_items where user_id = ?", cartKeys);
+                jdbcTemplate.batchUpdate("delete from carts where user_id = ?", cartKeys);
+                jdbcTemplate.batchUpdate("insert into carts (user_id, total_price, updated_at) values (?, ?, ?)", cartRows);
+                jdbcTemplate.batchUpdate("insert into cart_items (user_id, product_id, product_name, quantity, unit_price) " +
+                        "values (?, ?, ?, ?, ?)", itemRows);
+            });
+        } catch (RuntimeException e) {
+            log.error("Cart flush failed for {} carts, will retry: {}", snapshots.size(), e.getMessage());
+            snapshots.forEach(snapshot -> dirty.add(snapshot.userId()));
+            return;
+        }
+        for (CartSnapshot snapshot : snapshots) {
+            ReentrantLock lock = stripeFor(snapshot.userId());
+            lock.lock();
+            try {
+                CartState cart = carts.get(snapshot.userId());
+                if (cart != null && cart.persistedVersion < snapshot.version()) {
+                    cart.persistedVersion = snapshot.version();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        flushedCarts.increment(snapshots.size());
+    }
+
+    private void evictIdle() {
+        long idleNanos = idleEviction.toNanos();
+        long now = System.nanoTime();
+        boolean overCapacity = carts.size() > maxResident;
+        for (CartState candidate : carts.values()) {
+            if (!overCapacity && now - candidate.lastAccessNanos < idleNanos) {
+                continue;
+            }
+            ReentrantLock lock = stripeFor(candidate.userId);
+            lock.lock();
+            try {
+                // only evict what is safely persisted; unflushed carts stay until the next pass
+                if (candidate.version == candidate.persistedVersion
+                        && (overCapacity || now - candidate.lastAccessNanos >= idleNanos)
+                        && carts.remove(candidate.userId, candidate)) {
+                    stripeEvictions[stripeIndex(candidate.userId)]++;
+                    evictedCarts.increment();
+                }
+            } finally {
+                lock.unlock();
+            }
+            overCapacity = carts.size() > maxResident;
+        }
+    }
+
+    /**
+     * Returns the user's cart with its stripe held, restoring it from the database first if it is
+     * not resident. The caller unlocks the stripe.
+     */
+    private CartState lockResident(Long userId, int stripe) {
+        ReentrantLock lock = stripes[stripe];
+        while (true) {
+            lock.lock();
+            CartState cart = carts.get(userId);
+            if (cart != null) {
+                return cart;
+            }
+            long evictions = stripeEvictions[stripe];
+            lock.unlock();
+
+            CartState restored = restore(userId);
+            lock.lock();
+            // an eviction since the check may have persisted a newer version than the one just read
+            if (stripeEvictions[stripe] == evictions) {
+                cart = carts.putIfAbsent(userId, restored);
+                if (cart != null) {
+                    // another request restored or created it first
+                    return cart;
+                }
+                if (!restored.lines.isEmpty()) {
+                    restoredCarts.increment();
+                }
+                return restored;
+            }
+            lock.unlock();
+        }
+    }
+
+    private CartState restore(Long userId) {
+        CartState cart = new CartState(userId);
+        jdbcTemplate.query("select product_id, product_name, quantity, unit_price from cart_items where user_id = ? " +
+                        "order by cart_item_id",
+                rs -> {
+                    CartLine line = new CartLine(rs.getLong("product_id"), rs.getString("product_name"),
+                            rs.getInt("quantity"), rs.getDouble("unit_price"));
+                    cart.lines.put(line.productId, line);
+                }, userId);
+        return cart;
+    }
+
+    private ReentrantLock stripeFor(Long userId) {
+        return stripes[stripeIndex(userId)];
+    }
+
+    private int stripeIndex(Long userId) {
+        int h = userId.hashCode();
+        return (h ^ (h >>> 16)) & (stripes.length - 1);
+    }
+
+    /**
+     * Mutable cart state; only touched while holding the user's stripe. Lines keep insertion order
+     * and are keyed by product id, so add, remove and change-quantity are O(1).
+     */
+    public static final class CartState {
+        private final Long userId;
+        private final LinkedHashMap<Long, CartLine> lines = new LinkedHashMap<>();
+        private long version;
+        private long persistedVersion;
+        private long lastAccessNanos;
+
+        private CartState(Long userId) {
+            this.userId = userId;
+        }
+
+        public Long userId() {
+            return userId;
+        }
+
+        public Map<Long, CartLine> lines() {
+            return lines;
+        }
+    }
+
+    public static final class CartLine {
+        private final Long productId;
+        private String productName;
+        private int quantity;
+        private double unitPrice;
+
+        public CartLine(Long productId, String productName, int quantity, double unitPrice) {
+            this.productId = productId;
+            this.productName = productName;
+            this.quantity = quantity;
+            this.unitPrice = unitPrice;
+        }
+
+        public Long productId() {
+            return productId;
+        }
+
+        public String productName() {
+            return productName;
+        }
+
+        public int quantity() {
+            return quantity;
+        }
+
+        public double unitPrice() {
+            return unitPrice;
+        }
+
+        public double lineTotal() {
+            return quantity * unitPrice;
+        }
+
+        public void setQuantity(int quantity) {
+            this.quantity = quantity;
+        }
+
+        public void reprice(String productName, double unitPrice) {
+            this.productName = productName;
+            this.unitPrice = unitPrice;
+        }
+
+        CartLine copy() {
+            return new CartLine(productId, productName, quantity, unitPrice);
+        }
+    }
+
+    private record CartSnapshot(Long userId, long version, List<CartLine> lines) {
+    }
+}
@@ -0,0 +1,133 @@
+package ca.robertgleason.ecommbe.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Removes the rows {@code deleteProduct} and {@code deleteCategory} only marked with
+ * {@code deleted_at}; every read, and sellers' totals, stopped counting them when they were
+ * marked. Every batch of at most {@code app.purge.batch-size} rows is its own short transaction,
+ * so a category with a million products never holds a large set of row locks, and a run stops
+ * after {@code app.purge.max-batches-per-run} batches of each kind and resumes on the next one.
+ * <p>
+ * Soft-deleted products are kept for {@code app.purge.retention} before their rows go, and a
+ * deleted category's row follows once it has no products left. Image files are not touched here:
+ * once no row references them, {@link OrphanImageSweeper} deletes them.
+ */
+@Component
+public class CatalogPurger {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogPurger.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer runTimer;
+    private final Counter purgedProducts;
+    private final Counter purgedCategories;
+
+    @Value("${app.purge.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.purge.retention:PT1H}")
+    private Duration retention;
+
+    @Value("${app.purge.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.purge.max-batches-per-run:200}")
+    private int maxBatchesPerRun;
+
+    public CatalogPurger(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.runTimer = meterRegistry.timer("catalog.purge.run");
+        this.purgedProducts = meterRegistry.counter("catalog.purge.products");
+        this.purgedCategories = meterRegistry.counter("catalog.purge.categories");
+    }
+
+    @Scheduled(initialDelayString = "${app.purge.interval-ms:60000}", fixedDelayString = "${app.purge.interval-ms:60000}")
+    public synchronized void purge() {
+        if (!enabled) {
+            return;
+        }
+        runTimer.record(() -> {
+            purgeDeletedProducts(maxBatchesPerRun);
+            purgeDeletedCategories(maxBatchesPerRun);
+        });
+    }
+
+    private void purgeDeletedProducts(int budget) {
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(retention));
+        while (budget > 0) {
+            budget--;
+            int purged = transactionTemplate.execute(status -> {
+                List<Long> ids = jdbcTemplate.queryForList(
+                        "select product_id from products where deleted_at < ? order by deleted_at limit ?",
+                        Long.class, cutoff, batchSize);
+                deleteProducts(ids);
+                return ids.size();
+            });
+            if (purged < batchSize) {
+                break;
+            }
+        }
+    }
+
+    private void purgeDeletedCategories(int budget) {
+        // a category whose products are still within their retention stays until a later run
+        long total = 0;
+        while (budget > 0) {
+            budget--;
+            int purged = transactionTemplate.execute(status -> {
+                List<Long> ids = jdbcTemplate.queryForList("select c.category_id from categories c " +
+                                "where c.deleted_at is not null and not exists " +
+                                "(select 1 from products p where p.category_id = c.category_id) order by c.category_id limit ?",
+                        Long.class, batchSize);
+                deleteCategories(ids);
+                return ids.size();
+            });
+            total += purged;
+            if (purged < batchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Purged {} deleted categories", total);
+        }
+    }
+
+    private void deleteProducts(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(ids.size());
+        ids.forEach(id -> args.add(new Object[]{id}));
+        jdbcTemplate.batchUpdate("delete from products where product_id = ?", args);
+        purgedProducts.increment(ids.size());
+    }
+
+    private void deleteCategories(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(ids.size());
+        ids.forEach(id -> args.add(new Object[]{id}));
+        jdbcTemplate.batchUpdate("delete from categories where category_id = ?", args);
+        purgedCategories.increment(ids.size());
+    }
+}
@@ -0,0 +1,54 @@
+package ca.robertgleason.ecommbe.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic counter bumped on every product or category mutation. Caches of catalog reads key
+ * their entries by it, so a write invalidates them without tracking individual keys.
+ * <p>
+ * Inside a transaction the bump is deferred until commit; bumping earlier would let a concurrent
+ * reader cache the pre-commit data under the new version. For the same reason replicas must not
+ * serve reads for a while after a bump, see {@link #changedWithin}.
+ */
+@Component
+public class CatalogVersion {
+
+    private final AtomicLong version = new AtomicLong();
+    private volatile boolean changed;
+    private volatile long lastChangeNanos;
+
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * Whether the catalog was changed in the last {@code nanos} nanoseconds.
+     */
+    public boolean changedWithin(long nanos) {
+        return changed && System.nanoTime() - lastChangeNanos <= nanos;
+    }
+
+    public void bump() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    advance();
+                }
+            });
+            return;
+        }
+        advance();
+    }
+
+    private void advance() {
+        // the timestamp is written first, so whoever sees the new version also sees when it changed
+        lastChangeNanos = System.nanoTime();
+        changed = true;
+        version.incrementAndGet();
+    }
+}
@@ -1,12 +1,16 @@
 package ca.robertgleason.ecommbe.service;
 
 
+import ca.robertgleason.ecommbe.audit.AuditAction;
+import ca.robertgleason.ecommbe.audit.AuditEntity;
+import ca.robertgleason.ecommbe.audit.AuditLog;
 import ca.robertgleason.ecommbe.excepetions.APIException;
 import ca.robertgleason.ecommbe.excepetions.ResourceNotFoundException;
 import ca.robertgleason.ecommbe.model.Category;
 import ca.robertgleason.ecommbe.payload.CategoryDTO;
 import ca.robertgleason.ecommbe.payload.CategoryResponse;
 import ca.robertgleason.ecommbe.repository.CategoryRepository;
+import ca.robertgleason.ecommbe.repository.ProductRepository;
 import ca.robertgleason.ecommbe.utilties.MappingUtils;
 import jakarta.validation.Valid;
 import org.modelmapper.ModelMapper;
@@ -17,7 +21,9 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.List;
 
 @Service
@@ -29,15 +35,25 @@ public class CategoryServiceImpl implements CategoryService {
     private final CategoryRepository categoryRepository;
     private final ModelMapper modelMapper;
     private final MappingUtils mappingUtils;
+    private final CatalogVersion catalogVersion;
+    private final AuditLog auditLog;
+    private final ProductRepository productRepository;
+    private final SellerStatsStore sellerStatsStore;
 
 
-    public CategoryServiceImpl(CategoryRepository categoryRepository, ModelMapper modelMapper, MappingUtils mappingUtils) {
+    public CategoryServiceImpl(CategoryRepository categoryRepository, ModelMapper modelMapper, MappingUtils mappingUtils, CatalogVersion catalogVersion,
+                               AuditLog auditLog, ProductRepository productRepository, SellerStatsStore sellerStatsStore) {
         this.categoryRepository = categoryRepository;
+        this.productRepository = productRepository;
+        this.sellerStatsStore = sellerStatsStore;
         this.modelMapper = modelMapper;
         this.mappingUtils = mappingUtils;
+        this.catalogVersion = catalogVersion;
+        this.auditLog = auditLog;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public CategoryResponse getAllCategories(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
         Sort sortByAndOrder = sortOrder.equalsIgnoreCase("asc") ?
                 Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
@@ -65,6 +81,7 @@ public class CategoryServiceImpl implements CategoryService {
     }
 
     @Override
+    @Transactional
     public CategoryDTO createCategory(@Valid CategoryDTO categoryDTO) {
         Category category = modelMapper.map(categoryDTO, Category.class);
         Category existingCategory = categoryRepository.findByCategoryName(category.getCategoryName());
@@ -72,22 +89,31 @@ public class CategoryServiceImpl implements CategoryService {
             throw new APIException("Category with name '" + category.getCategoryName() + "' already exists");
         }
         Category savedCategory = categoryRepository.save(category);
+        catalogVersion.bump();
+        auditLog.record(AuditAction.CREATE, AuditEntity.CATEGORY, savedCategory.getCategoryId());
         return modelMapper.map(savedCategory, CategoryDTO.class);
 
     }
 
     @Override
+    @Transactional
     public CategoryDTO deleteCategory(Long categoryId) {
-        if (!categoryRepository.existsById(categoryId)) {
+        if (categoryRepository.softDelete(categoryId, Instant.now()) == 0) {
             log.warn("Attempted to delete non-existent category with ID: {}", categoryId);
             throw new ResourceNotFoundException("Category", "ID", categoryId);
         }
-        categoryRepository.deleteById(categoryId);
+        // its products disappear from every read and from checkout with it; CatalogPurger removes the rows later
+        sellerStatsStore.removeCategory(categoryId);
+        int products = productRepository.softDeleteByCategory(categoryId, Instant.now());
+        log.info("Marked {} products of category {} deleted", products, categoryId);
+        catalogVersion.bump();
+        auditLog.record(AuditAction.DELETE, AuditEntity.CATEGORY, categoryId);
         log.info("Category with ID {} deleted successfully", categoryId);
         return new CategoryDTO(categoryId, "Category deleted successfully");
     }
 
     @Override
+    @Transactional
     public CategoryDTO updateCategory(Long categoryId, CategoryDTO categoryDTO) {
         Category existingCategory = categoryRepository.findById(categoryId)
                 .orElseThrow(() -> {
@@ -96,7 +122,10 @@ public class CategoryServiceImpl implements CategoryService {
                 });
         Category category = modelMapper.map(categoryDTO, Category.class);
         existingCategory.setCategoryName(category.getCategoryName());
-        return modelMapper.map(categoryRepository.save(existingCategory), CategoryDTO.class);
+        Category savedCategory = categoryRepository.save(existingCategory);
+        catalogVersion.bump();
+        auditLog.record(AuditAction.UPDATE, AuditEntity.CATEGORY, categoryId);
+        return modelMapper.map(savedCategory, CategoryDTO.class);
     }
 
 
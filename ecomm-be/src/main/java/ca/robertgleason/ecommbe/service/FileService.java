@@ -3,8 +3,11 @@ package ca.robertgleason.ecommbe.service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 public interface FileService {
 
     String uploadImage(String path, MultipartFile file) throws IOException;
+
+    ByteBuffer readImage(String path, String fileName) throws IOException;
 }
@@ -1,36 +1,100 @@
 package ca.robertgleason.ecommbe.service;
 
+import ca.robertgleason.ecommbe.excepetions.APIException;
+import ca.robertgleason.ecommbe.excepetions.ResourceNotFoundException;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
 import java.util.UUID;
 
 @Service
 public class FileServiceImpl implements FileService {
 
+    private final long maxFileSize;
+    private final ImageCache imageCache;
+
+    // concurrent uploads are bounded by UploadConcurrencyFilter, before the container receives the body
+    public FileServiceImpl(ImageCache imageCache,
+                           @Value("${project.image.upload.max-file-size-bytes:5242880}") long maxFileSize) {
+        this.maxFileSize = maxFileSize;
+        this.imageCache = imageCache;
+    }
+
+    /**
+     * Returns the two-level shard directory for a file name, e.g. {@code 3f/a2}, so that no single
+     * directory grows to hundreds of thousands of entries.
+     */
+    public static String shardFor(String fileName) {
+        int h = fileName.hashCode();
+        h ^= (h >>> 16);
+        return String.format("%02x/%02x", (h >>> 8) & 0xff, h & 0xff);
+    }
 
     @Override
+    @Timed(value = "images.upload", description = "Image upload to disk")
     public String uploadImage(String path, MultipartFile file) throws IOException {
         // file names of current file
         String originalFilename = file.getOriginalFilename();
-        // generate a unique file name (UUID)
-        String randomID = UUID.randomUUID().toString();
-        assert originalFilename != null;
-        String fileName = randomID.concat(originalFilename.substring(originalFilename.lastIndexOf(".")));
-        String filePath = path + File.separator + fileName;
-        // check if path exists and create
-        File folder = new File(path);
-        if (!folder.exists()) {
-            folder.mkdir();
-        }
-
-        // upload to server
-        Files.copy(file.getInputStream(), Paths.get(filePath));
-        // returning the file name
+        if (originalFilename == null || !originalFilename.contains(".")) {
+            throw new APIException("Image file name must have an extension");
+        }
+        if (file.getSize() > maxFileSize) {
+            throw new APIException("Image exceeds the maximum size of " + maxFileSize + " bytes");
+        }
+        String extension = originalFilename.substring(originalFilename.lastIndexOf(".")).toLowerCase(Locale.ROOT);
+        if (extension.contains("/") || extension.contains("\\")) {
+            throw new APIException("Invalid image file name: " + originalFilename);
+        }
+        // generate a unique file name (UUID) inside its shard directory
+        String baseName = UUID.randomUUID().toString().concat(extension);
+        String fileName = shardFor(baseName) + "/" + baseName;
+        Path target = Paths.get(path, fileName);
+        // idempotent and safe when several uploads create the same shard concurrently
+        Files.createDirectories(target.getParent());
+
+        // transferTo(File) hands over to Part.write, which moves a part the container spooled to disk;
+        // transferTo(Path) would stream-copy it instead. The path must be absolute: the container
+        // resolves a relative one, like the default images/, against its multipart temp directory
+        file.transferTo(target.toAbsolutePath().toFile());
+        imageCache.invalidate(fileName);
+        // returning the file name relative to the image root
         return fileName;
     }
+
+    @Override
+    @Timed(value = "images.read", description = "Image read from cache or disk")
+    public ByteBuffer readImage(String path, String fileName) throws IOException {
+        Path root = Paths.get(path).toAbsolutePath().normalize();
+        Path file = root.resolve(fileName).normalize();
+        if (!file.startsWith(root)) {
+            throw new ResourceNotFoundException("Image", "name", fileName);
+        }
+        // one key per file: aliases like 3f/./a2/x.png must neither take their own copy nor escape invalidate
+        String cacheKey = root.relativize(file).toString().replace('\\', '/');
+        ByteBuffer cached = imageCache.get(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+        if (!Files.isRegularFile(file)) {
+            throw new ResourceNotFoundException("Image", "name", fileName);
+        }
+        long size = Files.size(file);
+        if (imageCache.accepts(size)) {
+            return imageCache.put(cacheKey, Files.readAllBytes(file));
+        }
+        // too large to cache: map the file so it is still served without a heap copy
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
 }
@@ -0,0 +1,113 @@
+package ca.robertgleason.ecommbe.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU cache of hot image bytes held in direct buffers, outside the Java heap, bounded by a byte
+ * budget. Callers receive read-only views so a cached buffer can be written to many responses
+ * concurrently.
+ */
+@Component
+public class ImageCache {
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+
+    // access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, ByteBuffer> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long residentBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ImageCache(@Value("${project.image.cache.max-bytes:67108864}") long maxBytes,
+                      @Value("${project.image.cache.max-entry-bytes:1048576}") long maxEntryBytes,
+                      MeterRegistry meterRegistry) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxEntryBytes;
+        FunctionCounter.builder("images.cache.hits", hits, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("images.cache.misses", misses, LongAdder::sum).register(meterRegistry);
+        Gauge.builder("images.cache.hit.ratio", this, ImageCache::hitRatio).register(meterRegistry);
+        Gauge.builder("images.cache.resident.bytes", this, ImageCache::residentBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("images.cache.entries", this, ImageCache::size).register(meterRegistry);
+    }
+
+    public ByteBuffer get(String fileName) {
+        ByteBuffer buffer;
+        synchronized (entries) {
+            buffer = entries.get(fileName);
+        }
+        if (buffer == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return buffer.asReadOnlyBuffer();
+    }
+
+    public boolean accepts(long size) {
+        return size <= maxEntryBytes && size <= maxBytes;
+    }
+
+    public ByteBuffer put(String fileName, byte[] bytes) {
+        // the direct buffer is released by its cleaner once evicted and no response still holds a view
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+        synchronized (entries) {
+            ByteBuffer previous = entries.put(fileName, buffer);
+            if (previous != null) {
+                residentBytes -= previous.capacity();
+            }
+            residentBytes += buffer.capacity();
+            Iterator<Map.Entry<String, ByteBuffer>> eldest = entries.entrySet().iterator();
+            while (residentBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, ByteBuffer> entry = eldest.next();
+                if (entry.getValue() == buffer) {
+                    continue;
+                }
+                residentBytes -= entry.getValue().capacity();
+                eldest.remove();
+            }
+        }
+        return buffer.asReadOnlyBuffer();
+    }
+
+    public void invalidate(String fileName) {
+        synchronized (entries) {
+            ByteBuffer removed = entries.remove(fileName);
+            if (removed != null) {
+                residentBytes -= removed.capacity();
+            }
+        }
+    }
+
+    public double hitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    public long residentBytes() {
+        synchronized (entries) {
+            return residentBytes;
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package ca.robertgleason.ecommbe.service;
+
+import ca.robertgleason.ecommbe.model.Product;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One-off migration from the flat image directory to the sharded layout. Files are moved in
+ * parallel and each product's {@code products.image} is rewritten as soon as its own move has
+ * succeeded. Enable with {@code project.image.migrate-shards=true}. The run is resumable: already
+ * sharded rows (containing a '/') are skipped, and a row whose file was moved before a crash is
+ * recognised by the file already sitting in its shard and rewritten without moving anything.
+ * {@link OrphanImageSweeper} is held off for the whole run, since a moved file keeps its old
+ * modification time and is unreferenced until its row is rewritten.
+ */
+@Component
+@ConditionalOnProperty(name = "project.image.migrate-shards", havingValue = "true")
+public class ImageShardMigration implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageShardMigration.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ImageCache imageCache;
+    private final EntityManagerFactory entityManagerFactory;
+    private final OrphanImageSweeper orphanImageSweeper;
+
+    private final AtomicInteger migrated = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    @Value("${project.image}")
+    private String path;
+
+    @Value("${project.image.migrate-shards.batch-size:500}")
+    private int batchSize;
+
+    public ImageShardMigration(JdbcTemplate jdbcTemplate, ImageCache imageCache, EntityManagerFactory entityManagerFactory,
+                               OrphanImageSweeper orphanImageSweeper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.imageCache = imageCache;
+        this.entityManagerFactory = entityManagerFactory;
+        this.orphanImageSweeper = orphanImageSweeper;
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        orphanImageSweeper.runExclusively(() -> {
+            migrateAll();
+            return null;
+        });
+    }
+
+    private void migrateAll() throws InterruptedException {
+        long lastId = 0;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (true) {
+                List<ProductImage> batch = jdbcTemplate.query(
+                        "select product_id, image from products where product_id > ? and image is not null " +
+                                "and image not like '%/%' order by product_id limit ?",
+                        (rs, rowNum) -> new ProductImage(rs.getLong("product_id"), rs.getString("image")),
+                        lastId, batchSize);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                lastId = batch.get(batch.size() - 1).productId();
+
+                List<Future<String>> moves = new ArrayList<>(batch.size());
+                for (ProductImage image : batch) {
+                    moves.add(executor.submit(() -> migrate(image)));
+                }
+                for (int i = 0; i < moves.size(); i++) {
+                    try {
+                        moves.get(i).get();
+                    } catch (ExecutionException e) {
+                        // the row keeps its flat name and is picked up again by the next run
+                        failed.incrementAndGet();
+                        log.warn("Moving image of product {} failed: {}", batch.get(i).productId(), e.getCause().getMessage());
+                    }
+                }
+            }
+        }
+        // the JDBC updates bypass Hibernate, so cached products and query rows would still carry the old image names
+        Cache cache = entityManagerFactory.getCache().unwrap(Cache.class);
+        cache.evictEntityData(Product.class);
+        cache.evictQueryRegions();
+        log.info("Image shard migration finished, {} products rewritten, {} failed", migrated.get(), failed.get());
+    }
+
+    private String migrate(ProductImage image) throws IOException {
+        String shardedName = move(image);
+        if (shardedName != null) {
+            jdbcTemplate.update("update products set image = ? where product_id = ?", shardedName, image.productId());
+            migrated.incrementAndGet();
+        }
+        return shardedName;
+    }
+
+    /**
+     * Moves the image and its variants into their shard and returns the sharded name, or null for
+     * images that are not stored in the image directory.
+     */
+    private String move(ProductImage image) throws IOException {
+        String shardedName = FileServiceImpl.shardFor(image.image()) + "/" + image.image();
+        Path source = Paths.get(path, image.image());
+        if (Files.exists(source)) {
+            moveFile(source, Paths.get(path, shardedName));
+        } else if (!Files.exists(Paths.get(path, shardedName))) {
+            // shared placeholders such as default.png are not stored in the image directory
+            return null;
+        }
+        // an earlier run may have stopped between the original and its variants
+        for (ImageVariant variant : ImageVariant.values()) {
+            Path variantSource = Paths.get(path, variant.fileNameFor(image.image()));
+            if (Files.exists(variantSource)) {
+                moveFile(variantSource, Paths.get(path, variant.fileNameFor(shardedName)));
+            }
+        }
+        return shardedName;
+    }
+
+    private void moveFile(Path source, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        imageCache.invalidate(Paths.get(path).relativize(source).toString().replace('\\', '/'));
+    }
+
+    private record ProductImage(Long productId, String image) {
+    }
+}
@@ -0,0 +1,51 @@
+package ca.robertgleason.ecommbe.service;
+
+public enum ImageVariant {
+    THUMBNAIL("thumbnail", 150),
+    GRID("grid", 400),
+    DETAIL("detail", 1000);
+
+    private final String key;
+    private final int maxDimension;
+
+    ImageVariant(String key, int maxDimension) {
+        this.key = key;
+        this.maxDimension = maxDimension;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    /**
+     * Derives the variant file name from the original, e.g. {@code abc.png} becomes {@code abc_thumbnail.png}.
+     * The variant always lives beside the original.
+     */
+    public String fileNameFor(String originalFileName) {
+        int dot = originalFileName.lastIndexOf('.');
+        if (dot < 0) {
+            return originalFileName + "_" + key;
+        }
+        return originalFileName.substring(0, dot) + "_" + key + originalFileName.substring(dot);
+    }
+
+    /**
+     * Reverses {@link #fileNameFor(String)}; returns {@code null} when the name is not a variant.
+     */
+    public static String originalFileNameOf(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        String stem = dot < 0 ? fileName : fileName.substring(0, dot);
+        String extension = dot < 0 ? "" : fileName.substring(dot);
+        for (ImageVariant variant : values()) {
+            String suffix = "_" + variant.key;
+            if (stem.endsWith(suffix)) {
+                return stem.substring(0, stem.length() - suffix.length()) + extension;
+            }
+        }
+        return null;
+    }
+}
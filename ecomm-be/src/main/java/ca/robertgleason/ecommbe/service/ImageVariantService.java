@@ -0,0 +1,10 @@
+package ca.robertgleason.ecommbe.service;
+
+import java.util.Map;
+
+public interface ImageVariantService {
+
+    void generateVariantsAsync(String fileName);
+
+    Map<String, String> resolveVariants(String fileName);
+}
@@ -0,0 +1,278 @@
+package ca.robertgleason.ecommbe.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class ImageVariantServiceImpl implements ImageVariantService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageVariantServiceImpl.class);
+
+    // sources are subsampled while decoding down to no less than twice the largest variant
+    private static final int LARGEST_VARIANT = Arrays.stream(ImageVariant.values())
+            .mapToInt(ImageVariant::getMaxDimension).max().orElseThrow();
+
+    private final String path;
+    private final ExecutorService executor;
+    private final ImageCache imageCache;
+    private final CatalogVersion catalogVersion;
+
+    // file name -> whether every variant exists on disk; avoids stat calls on every listing.
+    // Bounded LRU, and a missing answer is only trusted for missingRecheckNanos.
+    private final Map<String, VariantState> variantStates;
+    private final int maxStates;
+    private final long missingRecheckNanos;
+    private final long maxSourcePixels;
+    // file names queued or being generated, so a listing does not schedule them twice
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    public ImageVariantServiceImpl(@Value("${project.image}") String path,
+                                   @Value("${project.image.variants.threads:2}") int threads,
+                                   @Value("${project.image.variants.queue-capacity:500}") int queueCapacity,
+                                   @Value("${project.image.variants.state-cache-size:100000}") int maxStates,
+                                   @Value("${project.image.variants.missing-recheck-ms:600000}") long missingRecheckMs,
+                                   @Value("${project.image.variants.max-source-pixels:40000000}") long maxSourcePixels,
+                                   ImageCache imageCache,
+                                   CatalogVersion catalogVersion) {
+        this.path = path;
+        this.imageCache = imageCache;
+        this.catalogVersion = catalogVersion;
+        this.maxStates = maxStates;
+        this.missingRecheckNanos = TimeUnit.MILLISECONDS.toNanos(missingRecheckMs);
+        this.maxSourcePixels = maxSourcePixels;
+        this.variantStates = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VariantState> eldest) {
+                return size() > ImageVariantServiceImpl.this.maxStates;
+            }
+        };
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("image-variant-", 0).daemon(true).factory());
+    }
+
+    /**
+     * Queues variant generation once the current transaction commits, so an image update that
+     * rolls back leaves no variant files behind.
+     */
+    @Override
+    public void generateVariantsAsync(String fileName) {
+        remember(fileName, false);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    schedule(fileName);
+                }
+            });
+            return;
+        }
+        schedule(fileName);
+    }
+
+    @Override
+    public Map<String, String> resolveVariants(String fileName) {
+        Map<String, String> variants = new LinkedHashMap<>();
+        if (fileName == null) {
+            return variants;
+        }
+        boolean ready = variantsReady(fileName);
+        for (ImageVariant variant : ImageVariant.values()) {
+            variants.put(variant.getKey(), ready ? variant.fileNameFor(fileName) : fileName);
+        }
+        return variants;
+    }
+
+    private boolean variantsReady(String fileName) {
+        VariantState state;
+        synchronized (variantStates) {
+            state = variantStates.get(fileName);
+        }
+        if (state != null && (state.ready() || state.failed() || System.nanoTime() - state.checkedAt() < missingRecheckNanos)) {
+            return state.ready();
+        }
+        boolean ready = variantsExistOnDisk(fileName);
+        remember(fileName, ready);
+        if (ready && state != null) {
+            // pages rendered while this was remembered as missing pointed at the original
+            catalogVersion.bump();
+        }
+        // generation was dropped, failed or predates this process; placeholders are not in the image directory
+        if (!ready && Files.isRegularFile(Paths.get(path, fileName))) {
+            schedule(fileName);
+        }
+        return ready;
+    }
+
+    private void remember(String fileName, boolean ready) {
+        remember(fileName, new VariantState(ready, false, System.nanoTime()));
+    }
+
+    // the original cannot be turned into variants; it is served as is and not retried
+    private void rememberFailed(String fileName) {
+        remember(fileName, new VariantState(false, true, System.nanoTime()));
+    }
+
+    private void remember(String fileName, VariantState state) {
+        synchronized (variantStates) {
+            variantStates.put(fileName, state);
+        }
+    }
+
+    private void schedule(String fileName) {
+        if (!pending.add(fileName)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generateVariants(fileName);
+                } finally {
+                    pending.remove(fileName);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(fileName);
+            // the original keeps being served and the next recheck retries, so dropping the job is safe
+            log.warn("Image variant queue is full, skipping variants for {}", fileName);
+        }
+    }
+
+    private boolean variantsExistOnDisk(String fileName) {
+        for (ImageVariant variant : ImageVariant.values()) {
+            if (!Files.exists(Paths.get(path, variant.fileNameFor(fileName)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void generateVariants(String fileName) {
+        Path original = Paths.get(path, fileName);
+        try {
+            BufferedImage source = readSource(original, fileName);
+            if (source == null) {
+                rememberFailed(fileName);
+                return;
+            }
+            String format = formatOf(fileName);
+            for (ImageVariant variant : ImageVariant.values()) {
+                BufferedImage scaled = scale(source, variant.getMaxDimension(), format);
+                Path target = Paths.get(path, variant.fileNameFor(fileName));
+                // write to a temp file and move so readers never see a partial variant
+                Path tmp = Files.createTempFile(target.getParent(), ".variant-", ".tmp");
+                try {
+                    if (!ImageIO.write(scaled, format, tmp.toFile())) {
+                        log.warn("No ImageIO writer for format {}, serving the original only", format);
+                        rememberFailed(fileName);
+                        return;
+                    }
+                    Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    imageCache.invalidate(variant.fileNameFor(fileName));
+                } finally {
+                    Files.deleteIfExists(tmp);
+                }
+            }
+            remember(fileName, true);
+            // cached listings still point every variant at the full-size original
+            catalogVersion.bump();
+        } catch (IOException e) {
+            log.error("Failed to generate image variants for {}: {}", fileName, e.getMessage());
+        }
+    }
+
+    /**
+     * Decodes the original, or returns null if it has no reader or is over the pixel cap. The
+     * dimensions come from the header, so an oversized image is never decoded; a large one that
+     * is allowed is subsampled while decoding instead of being read at full resolution.
+     */
+    private BufferedImage readSource(Path original, String fileName) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                log.warn("No ImageIO reader for {}, serving the original only", fileName);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxSourcePixels) {
+                    log.warn("{} is {}x{}, over the {} pixel limit, serving the original only", fileName, width, height, maxSourcePixels);
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.max(width, height) / (2 * LARGEST_VARIANT));
+                if (step > 1) {
+                    param.setSourceSubsampling(step, step, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage scale(BufferedImage source, int maxDimension, String format) {
+        double ratio = Math.min(1.0, (double) maxDimension / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+        // JPEG has no alpha channel
+        int type = format.equals("jpg") || format.equals("jpeg") ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+
+        BufferedImage scaled = new BufferedImage(width, height, type);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private String formatOf(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot < 0 ? "png" : fileName.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private record VariantState(boolean ready, boolean failed, long checkedAt) {
+    }
+}
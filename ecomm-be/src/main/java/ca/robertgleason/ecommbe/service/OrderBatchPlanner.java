@@ -0,0 +1,51 @@
+package ca.robertgleason.ecommbe.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Allocates the stock for a batch of orders in arrival order. A line is accepted only if the
+ * remaining stock covers it, otherwise it is rejected rather than oversold; the other lines of
+ * the same order are unaffected. The result carries one combined decrement per product, so the
+ * whole batch needs a single update statement per product; decrements are in product id order,
+ * so every batch takes its row locks in the same order.
+ */
+public final class OrderBatchPlanner {
+
+    private OrderBatchPlanner() {
+    }
+
+    public static Plan plan(List<List<Line>> orders, Map<Long, Integer> available) {
+        Map<Long, Integer> remaining = new HashMap<>(available);
+        Map<Long, Integer> decrements = new TreeMap<>();
+        List<Allocation> allocations = new ArrayList<>(orders.size());
+        for (List<Line> order : orders) {
+            List<Line> accepted = new ArrayList<>(order.size());
+            List<Line> rejected = new ArrayList<>();
+            for (Line line : order) {
+                int left = remaining.getOrDefault(line.productId(), 0);
+                if (line.quantity() > 0 && line.quantity() <= left) {
+                    remaining.put(line.productId(), left - line.quantity());
+                    decrements.merge(line.productId(), line.quantity(), Integer::sum);
+                    accepted.add(line);
+                } else {
+                    rejected.add(line);
+                }
+            }
+            allocations.add(new Allocation(accepted, rejected));
+        }
+        return new Plan(allocations, decrements);
+    }
+
+    public record Line(Long productId, int quantity) {
+    }
+
+    public record Allocation(List<Line> accepted, List<Line> rejected) {
+    }
+
+    public record Plan(List<Allocation> allocations, Map<Long, Integer> decrements) {
+    }
+}
@@ -0,0 +1,307 @@
+package ca.robertgleason.ecommbe.service;
+
+import ca.robertgleason.ecommbe.excepetions.APIException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit for order placement. Callers enqueue an order and get a future; a single committer
+ * thread drains the queue into batches of up to {@code app.orders.max-batch-size}, waiting at most
+ * {@code app.orders.max-linger} for a batch to fill. Each batch is one transaction: the touched
+ * product rows are locked once, {@link OrderBatchPlanner} allocates stock in arrival order, and the
+ * combined decrements, orders and order lines are each written as one JDBC batch. The sellers'
+ * stock totals are adjusted in the same transaction, one row per seller rather than per order.
+ * <p>
+ * Compared to one transaction per order this takes each hot product's row lock once per batch
+ * instead of once per order, and nothing but the committer ever waits on it.
+ */
+@Component
+public class OrderPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderPipeline.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SellerStatsStore sellerStatsStore;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<PendingOrder> queue;
+    private final int maxBatchSize;
+    private final long maxLingerNanos;
+    private final Timer commitTimer;
+    private final DistributionSummary batchSize;
+    private final Counter rejectedLines;
+    private final Thread committer;
+    private volatile boolean running = true;
+
+    public OrderPipeline(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                         SellerStatsStore sellerStatsStore,
+                         @Value("${app.orders.queue-capacity:10000}") int queueCapacity,
+                         @Value("${app.orders.max-batch-size:64}") int maxBatchSize,
+                         @Value("${app.orders.max-linger:PT0.002S}") Duration maxLinger) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sellerStatsStore = sellerStatsStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.maxLingerNanos = maxLinger.toNanos();
+        this.commitTimer = meterRegistry.timer("orders.batch.commit");
+        this.batchSize = meterRegistry.summary("orders.batch.size");
+        this.rejectedLines = meterRegistry.counter("orders.lines.rejected");
+        meterRegistry.gaugeCollectionSize("orders.queue.depth", Tags.empty(), queue);
+        this.committer = new Thread(this::run, "order-committer");
+        this.committer.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        committer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // the committer drains what is already queued before it exits
+        running = false;
+        committer.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    /**
+     * Queues an order. The future completes once the batch containing it has committed, or
+     * exceptionally if that batch failed. Fails fast when the queue is full.
+     */
+    public CompletableFuture<PlacedOrder> submit(Long userId, List<OrderBatchPlanner.Line> lines) {
+        PendingOrder order = new PendingOrder(userId, List.copyOf(lines), new CompletableFuture<>());
+        if (!running || !queue.offer(order)) {
+            order.future().completeExceptionally(new APIException("Too many orders in flight, please retry"));
+        }
+        return order.future();
+    }
+
+    private void run() {
+        List<PendingOrder> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingOrder first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxLingerNanos;
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long wait = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || wait <= 0) {
+                        break;
+                    }
+                    PendingOrder next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (RuntimeException e) {
+                log.error("Order committer failed: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingOrder> batch) {
+        batchSize.record(batch.size());
+        List<PlacedOrder> placed;
+        try {
+            placed = commitTimer.record(() -> transactionTemplate.execute(status -> commitInTransaction(batch)));
+        } catch (RuntimeException e) {
+            log.error("Order batch of {} failed: {}", batch.size(), e.getMessage());
+            batch.forEach(order -> order.future().completeExceptionally(e));
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).future().complete(placed.get(i));
+        }
+    }
+
+    private List<PlacedOrder> commitInTransaction(List<PendingOrder> batch) {
+        Set<Long> productIds = new LinkedHashSet<>();
+        batch.forEach(order -> order.lines().forEach(line -> productIds.add(line.productId())));
+
+        Map<Long, ProductRow> products = lockProducts(productIds);
+        Map<Long, Integer> available = new HashMap<>();
+        products.forEach((id, row) -> available.put(id, row.quantity()));
+
+        OrderBatchPlanner.Plan plan = OrderBatchPlanner.plan(batch.stream().map(PendingOrder::lines).toList(), available);
+        applyDecrements(plan.decrements());
+        applySellerStats(plan.decrements(), products);
+
+        List<PlacedOrder> placed = new ArrayList<>(batch.size());
+        List<Integer> toInsert = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            OrderBatchPlanner.Allocation allocation = plan.allocations().get(i);
+            List<PricedLine> accepted = price(allocation.accepted(), products);
+            List<PricedLine> rejected = price(allocation.rejected(), products);
+            rejectedLines.increment(rejected.size());
+            double total = accepted.stream().mapToDouble(line -> line.quantity() * line.unitPrice()).sum();
+            placed.add(new PlacedOrder(null, batch.get(i).userId(), accepted, rejected, total));
+            if (!accepted.isEmpty()) {
+                toInsert.add(i);
+            }
+        }
+        insertOrders(placed, toInsert);
+        return placed;
+    }
+
+    private Map<Long, ProductRow> lockProducts(Set<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+        String placeholders = String.join(",", Collections.nCopies(productIds.size(), "?"));
+        Map<Long, ProductRow> products = new HashMap<>();
+        jdbcTemplate.query("select product_id, product_name, quantity, special_price, price, seller_id from products " +
+                        "where product_id in (" + placeholders + ") and deleted_at is null order by product_id for update",
+                rs -> {
+                    double specialPrice = rs.getDouble("special_price");
+                    double unitPrice = rs.wasNull() ? rs.getDouble("price") : specialPrice;
+                    long sellerId = rs.getLong("seller_id");
+                    products.put(rs.getLong("product_id"), new ProductRow(rs.getString("product_name"), rs.getInt("quantity"),
+                            unitPrice, rs.wasNull() ? null : sellerId));
+                },
+                productIds.toArray());
+        return products;
+    }
+
+    private void applyDecrements(Map<Long, Integer> decrements) {
+        if (decrements.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(decrements.size());
+        decrements.forEach((productId, quantity) -> args.add(new Object[]{quantity, productId, quantity}));
+        // the quantity guard is redundant under the row locks above; it turns a planning bug into a rollback, not an oversell
+        int[] updated = jdbcTemplate.batchUpdate(
+                "update products set quantity = quantity - ? where product_id = ? and quantity >= ?", args);
+        for (int count : updated) {
+            if (count == 0) {
+                throw new IllegalStateException("Stock changed while the order batch was being applied");
+            }
+        }
+    }
+
+    private void applySellerStats(Map<Long, Integer> decrements, Map<Long, ProductRow> products) {
+        Map<Long, SellerStatsStore.Contribution> deltas = new HashMap<>();
+        decrements.forEach((productId, quantity) -> {
+            ProductRow product = products.get(productId);
+            if (product.sellerId() != null) {
+                deltas.merge(product.sellerId(), new SellerStatsStore.Contribution(0, -quantity, -quantity * product.unitPrice()),
+                        SellerStatsStore.Contribution::plus);
+            }
+        });
+        sellerStatsStore.applyAll(deltas);
+    }
+
+    private void insertOrders(List<PlacedOrder> placed, List<Integer> toInsert) {
+        if (toInsert.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement("insert into orders (user_id, order_date, total_amount, order_status) values (?, ?, ?, ?)",
+                        new String[]{"order_id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        PlacedOrder order = placed.get(toInsert.get(i));
+                        ps.setLong(1, order.userId());
+                        ps.setTimestamp(2, now);
+                        ps.setDouble(3, order.totalAmount());
+                        ps.setString(4, PlacedOrder.STATUS_ACCEPTED);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return toInsert.size();
+                    }
+                },
+                keys);
+
+        List<Map<String, Object>> generated = keys.getKeyList();
+        List<Object[]> itemRows = new ArrayList<>();
+        for (int i = 0; i < toInsert.size(); i++) {
+            int index = toInsert.get(i);
+            Long orderId = ((Number) generated.get(i).values().iterator().next()).longValue();
+            PlacedOrder order = placed.get(index).withOrderId(orderId);
+            placed.set(index, order);
+            for (PricedLine line : order.accepted()) {
+                itemRows.add(new Object[]{orderId, line.productId(), line.productName(), line.quantity(), line.unitPrice()});
+            }
+        }
+        jdbcTemplate.batchUpdate("insert into order_items (order_id, product_id, product_name, quantity, unit_price) " +
+                "values (?, ?, ?, ?, ?)", itemRows);
+    }
+
+    private static List<PricedLine> price(List<OrderBatchPlanner.Line> lines, Map<Long, ProductRow> products) {
+        List<PricedLine> priced = new ArrayList<>(lines.size());
+        for (OrderBatchPlanner.Line line : lines) {
+            ProductRow product = products.get(line.productId());
+            priced.add(new PricedLine(line.productId(), product != null ? product.productName() : null,
+                    line.quantity(), product != null ? product.unitPrice() : 0));
+        }
+        return priced;
+    }
+
+    private record PendingOrder(Long userId, List<OrderBatchPlanner.Line> lines, CompletableFuture<PlacedOrder> future) {
+    }
+
+    private record ProductRow(String productName, int quantity, double unitPrice, Long sellerId) {
+    }
+
+    public record PricedLine(Long productId, String productName, int quantity, double unitPrice) {
+    }
+
+    /**
+     * Outcome of one order. {@code orderId} is null when none of its lines could be filled.
+     */
+    public record PlacedOrder(Long orderId, Long userId, List<PricedLine> accepted, List<PricedLine> rejected,
+                              double totalAmount) {
+
+        public static final String STATUS_ACCEPTED = "ACCEPTED";
+
+        PlacedOrder withOrderId(Long orderId) {
+            return new PlacedOrder(orderId, userId, accepted, rejected, totalAmount);
+        }
+    }
+}
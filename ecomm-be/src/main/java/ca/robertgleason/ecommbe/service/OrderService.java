@@ -0,0 +1,11 @@
+package ca.robertgleason.ecommbe.service;
+
+import ca.robertgleason.ecommbe.payload.OrderDTO;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+
+@Service
+public interface OrderService {
+    CompletableFuture<OrderDTO> placeOrder(Long userId);
+}
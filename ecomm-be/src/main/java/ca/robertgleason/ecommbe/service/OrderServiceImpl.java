@@ -0,0 +1,105 @@
+package ca.robertgleason.ecommbe.service;
+
+import ca.robertgleason.ecommbe.excepetions.APIException;
+import ca.robertgleason.ecommbe.model.Product;
+import ca.robertgleason.ecommbe.payload.OrderDTO;
+import ca.robertgleason.ecommbe.payload.OrderItemDTO;
+import ca.robertgleason.ecommbe.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class OrderServiceImpl implements OrderService {
+
+    private final CartStore cartStore;
+    private final OrderPipeline orderPipeline;
+    private final CatalogVersion catalogVersion;
+    private final EntityManagerFactory entityManagerFactory;
+    // post-commit work (cart update, cache eviction) runs here rather than on the single committer thread,
+    // since restoring a cart can hit the database. Unbounded: it never holds more than the pipeline queue.
+    private final ExecutorService completionExecutor;
+    // users with an order between submit and completion, so a double submit cannot enqueue the same cart twice
+    private final Set<Long> ordersInFlight = ConcurrentHashMap.newKeySet();
+
+    public OrderServiceImpl(CartStore cartStore, OrderPipeline orderPipeline, CatalogVersion catalogVersion,
+                            EntityManagerFactory entityManagerFactory,
+                            @Value("${app.orders.completion-threads:2}") int completionThreads) {
+        this.cartStore = cartStore;
+        this.orderPipeline = orderPipeline;
+        this.catalogVersion = catalogVersion;
+        this.entityManagerFactory = entityManagerFactory;
+        this.completionExecutor = new ThreadPoolExecutor(completionThreads, completionThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                Thread.ofPlatform().name("order-completion-", 0).daemon(true).factory());
+    }
+
+    @Override
+    public CompletableFuture<OrderDTO> placeOrder(Long userId) {
+        if (!ordersInFlight.add(userId)) {
+            throw new APIException("An order for this cart is already being placed");
+        }
+        CompletableFuture<OrderDTO> result;
+        try {
+            result = submit(userId);
+        } catch (RuntimeException e) {
+            ordersInFlight.remove(userId);
+            throw e;
+        }
+        // released only after the cart has been updated, so the next order sees what is left in it
+        return result.whenComplete((orderDTO, failure) -> ordersInFlight.remove(userId));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        completionExecutor.shutdown();
+    }
+
+    private CompletableFuture<OrderDTO> submit(Long userId) {
+        List<OrderBatchPlanner.Line> lines = cartStore.read(userId, cart -> cart.lines().values().stream()
+                .map(line -> new OrderBatchPlanner.Line(line.productId(), line.quantity()))
+                .toList());
+        if (lines.isEmpty()) {
+            throw new APIException("Cart is empty");
+        }
+
+        return orderPipeline.submit(userId, lines).thenApplyAsync(placed -> {
+            if (placed.orderId() == null) {
+                throw new APIException("None of the products in the cart are in stock");
+            }
+            cartStore.update(userId, cart -> {
+                placed.accepted().forEach(line -> cart.lines().remove(line.productId()));
+                return null;
+            });
+            // stock was changed through JDBC, which Hibernate does not see: drop the cached copies of the touched
+            // products and the cached lookup rows that carry their quantity
+            Cache cache = entityManagerFactory.getCache().unwrap(Cache.class);
+            placed.accepted().forEach(line -> cache.evictEntityData(Product.class, line.productId()));
+            cache.evictQueryRegion(ProductRepository.LOOKUP_QUERY_REGION);
+            catalogVersion.bump();
+            return toDTO(placed);
+        }, completionExecutor);
+    }
+
+    private static OrderDTO toDTO(OrderPipeline.PlacedOrder placed) {
+        return new OrderDTO(placed.orderId(), placed.userId(), toItems(placed.accepted()), toItems(placed.rejected()),
+                placed.totalAmount(), OrderPipeline.PlacedOrder.STATUS_ACCEPTED);
+    }
+
+    private static List<OrderItemDTO> toItems(List<OrderPipeline.PricedLine> lines) {
+        return lines.stream()
+                .map(line -> new OrderItemDTO(line.productId(), line.productName(), line.quantity(), line.unitPrice()))
+                .toList();
+    }
+}
@@ -0,0 +1,188 @@
+package ca.robertgleason.ecommbe.service;
+
+import ca.robertgleason.ecommbe.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Periodically removes image files that no product references any more, e.g. after
+ * {@code updateProductImage} replaced an image or {@link CatalogPurger} removed a product.
+ * Files younger than the grace period are never touched, so an upload whose product row
+ * has not been committed yet is safe. Work that moves referenced files around, such as
+ * {@link ImageShardMigration}, runs through {@link #runExclusively} so no sweep sees a file
+ * whose row has not been rewritten yet.
+ */
+@Component
+public class OrphanImageSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(OrphanImageSweeper.class);
+
+    // the image root holds two levels of shard directories, see FileServiceImpl.shardFor
+    private static final int MAX_DEPTH = 2;
+
+    private final ProductRepository productRepository;
+    private final ImageCache imageCache;
+    private final Counter scannedCounter;
+    private final Counter orphanCounter;
+    private final Counter deletedCounter;
+    private final Counter deletedBytesCounter;
+    private final Timer runTimer;
+    // held by a sweep, or by work that must not overlap one
+    private final ReentrantLock sweepLock = new ReentrantLock();
+
+    @Value("${project.image}")
+    private String path;
+
+    @Value("${project.image.sweeper.enabled:true}")
+    private boolean enabled;
+
+    @Value("${project.image.sweeper.dry-run:false}")
+    private boolean dryRun;
+
+    @Value("${project.image.sweeper.grace-period:PT24H}")
+    private Duration gracePeriod;
+
+    @Value("${project.image.sweeper.batch-size:500}")
+    private int batchSize;
+
+    @Value("${project.image.sweeper.max-deletes-per-second:50}")
+    private int maxDeletesPerSecond;
+
+    public OrphanImageSweeper(ProductRepository productRepository, ImageCache imageCache, MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.imageCache = imageCache;
+        this.scannedCounter = meterRegistry.counter("images.sweeper.scanned");
+        this.orphanCounter = meterRegistry.counter("images.sweeper.orphans");
+        this.deletedCounter = meterRegistry.counter("images.sweeper.deleted");
+        this.deletedBytesCounter = meterRegistry.counter("images.sweeper.deleted.bytes");
+        this.runTimer = meterRegistry.timer("images.sweeper.run");
+    }
+
+    @Scheduled(initialDelayString = "${project.image.sweeper.initial-delay-ms:600000}",
+            fixedDelayString = "${project.image.sweeper.interval-ms:3600000}")
+    public void sweep() {
+        Path root = Paths.get(path);
+        if (!enabled || !Files.isDirectory(root)) {
+            return;
+        }
+        if (!sweepLock.tryLock()) {
+            log.info("Skipping orphan image sweep while image files are being moved");
+            return;
+        }
+        try {
+            runTimer.record(() -> {
+                List<Path> batch = new ArrayList<>(batchSize);
+                try {
+                    scan(root, root, 0, batch);
+                    processBatch(root, batch);
+                } catch (IOException e) {
+                    log.error("Orphan image sweep aborted: {}", e.getMessage());
+                }
+            });
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    /**
+     * Runs work with sweeping held off: a sweep in progress is waited for, and sweeps scheduled
+     * meanwhile are skipped. A moved file keeps its old modification time, so the grace period
+     * does not protect it until its row points at the new location.
+     */
+    public <T> T runExclusively(Callable<T> work) throws Exception {
+        sweepLock.lock();
+        try {
+            return work.call();
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    private void scan(Path root, Path dir, int depth, List<Path> batch) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path entry : stream) {
+                if (Files.isDirectory(entry)) {
+                    if (depth < MAX_DEPTH) {
+                        scan(root, entry, depth + 1, batch);
+                    }
+                    continue;
+                }
+                batch.add(entry);
+                if (batch.size() >= batchSize) {
+                    processBatch(root, batch);
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+    private void processBatch(Path root, List<Path> batch) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        scannedCounter.increment(batch.size());
+        Instant cutoff = Instant.now().minus(gracePeriod);
+
+        List<Path> candidates = new ArrayList<>(batch.size());
+        List<String> originals = new ArrayList<>(batch.size());
+        for (Path file : batch) {
+            if (Files.getLastModifiedTime(file).toInstant().isAfter(cutoff)) {
+                continue;
+            }
+            String name = root.relativize(file).toString().replace('\\', '/');
+            String original = ImageVariant.originalFileNameOf(name);
+            candidates.add(file);
+            originals.add(original != null ? original : name);
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        // one IN query per batch; a variant is kept as long as its original is referenced
+        Set<String> referenced = new HashSet<>(productRepository.findReferencedImages(new HashSet<>(originals)));
+        long pauseNanos = maxDeletesPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / maxDeletesPerSecond : 0;
+        for (int i = 0; i < candidates.size(); i++) {
+            if (referenced.contains(originals.get(i))) {
+                continue;
+            }
+            orphanCounter.increment();
+            Path orphan = candidates.get(i);
+            String name = root.relativize(orphan).toString().replace('\\', '/');
+            if (dryRun) {
+                log.info("Dry run: would delete orphaned image {}", orphan);
+                continue;
+            }
+            long size = Files.size(orphan);
+            if (Files.deleteIfExists(orphan)) {
+                imageCache.invalidate(name);
+                deletedCounter.increment();
+                deletedBytesCounter.increment(size);
+            }
+            if (pauseNanos > 0) {
+                LockSupport.parkNanos(pauseNanos);
+            }
+        }
+    }
+}
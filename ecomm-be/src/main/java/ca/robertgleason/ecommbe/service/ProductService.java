@@ -1,12 +1,14 @@
 package ca.robertgleason.ecommbe.service;
 
 
+import ca.robertgleason.ecommbe.payload.ProductBatchResponse;
 import ca.robertgleason.ecommbe.payload.ProductDTO;
 import ca.robertgleason.ecommbe.payload.ProductResponse;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.List;
 
 @Service
 public interface ProductService {
@@ -17,6 +19,8 @@ public interface ProductService {
 
     ProductResponse searchByCategory(Long categoryId, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder);
 
+    ProductBatchResponse getProductsByIds(List<Long> productIds);
+
     ProductResponse searchProductByKeyword(String keyword, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder);
 
     ProductDTO updateProduct(Long productId, ProductDTO product);
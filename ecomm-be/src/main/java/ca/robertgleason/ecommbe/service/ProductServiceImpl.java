@@ -1,26 +1,45 @@
 package ca.robertgleason.ecommbe.service;
 
 
+import ca.robertgleason.ecommbe.audit.AuditAction;
+import ca.robertgleason.ecommbe.audit.AuditEntity;
+import ca.robertgleason.ecommbe.audit.AuditLog;
 import ca.robertgleason.ecommbe.excepetions.APIException;
 import ca.robertgleason.ecommbe.excepetions.ResourceNotFoundException;
 import ca.robertgleason.ecommbe.model.Category;
 import ca.robertgleason.ecommbe.model.Product;
+import ca.robertgleason.ecommbe.model.User;
+import ca.robertgleason.ecommbe.payload.ProductBatchResponse;
 import ca.robertgleason.ecommbe.payload.ProductDTO;
 import ca.robertgleason.ecommbe.payload.ProductResponse;
 import ca.robertgleason.ecommbe.repository.CategoryRepository;
 import ca.robertgleason.ecommbe.repository.ProductRepository;
+import ca.robertgleason.ecommbe.repository.UserRepository;
+import ca.robertgleason.ecommbe.security.services.UserDetailsImpl;
 import ca.robertgleason.ecommbe.utilties.MappingUtils;
+import ca.robertgleason.ecommbe.utilties.PriceUtils;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class ProductServiceImpl implements ProductService {
@@ -31,19 +50,40 @@ public class ProductServiceImpl implements ProductService {
     private final ModelMapper modelMapper;
     private final MappingUtils mappingUtils;
     private final FileService fileService;
+    private final ImageVariantService imageVariantService;
+    private final CatalogVersion catalogVersion;
+    private final QueryCoalescer queryCoalescer;
+    private final TransactionTemplate readOnlyTransaction;
+    private final UserRepository userRepository;
+    private final SellerStatsStore sellerStatsStore;
+    private final AuditLog auditLog;
 
     @Value("${project.image}")
     private String path;
 
-    public ProductServiceImpl(CategoryRepository categoryRepository, ProductRepository productRepository, ModelMapper modelMapper, MappingUtils mappingUtils, FileService fileService) {
+    @Value("${app.products.batch.max-ids:100}")
+    private int maxBatchIds;
+
+    public ProductServiceImpl(CategoryRepository categoryRepository, ProductRepository productRepository, ModelMapper modelMapper, MappingUtils mappingUtils, FileService fileService, ImageVariantService imageVariantService, CatalogVersion catalogVersion,
+                              QueryCoalescer queryCoalescer, PlatformTransactionManager transactionManager,
+                              UserRepository userRepository, SellerStatsStore sellerStatsStore, AuditLog auditLog) {
         this.categoryRepository = categoryRepository;
         this.productRepository = productRepository;
         this.modelMapper = modelMapper;
         this.mappingUtils = mappingUtils;
         this.fileService = fileService;
+        this.imageVariantService = imageVariantService;
+        this.catalogVersion = catalogVersion;
+        this.queryCoalescer = queryCoalescer;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.userRepository = userRepository;
+        this.sellerStatsStore = sellerStatsStore;
+        this.auditLog = auditLog;
     }
 
     @Override
+    @Transactional
     public ProductDTO addProduct(Long categoryId, ProductDTO productDTO) {
         Category category = categoryRepository.findById(categoryId)
                 .orElseThrow(() -> new ResourceNotFoundException("Category", "id", categoryId));
@@ -55,15 +95,26 @@ public class ProductServiceImpl implements ProductService {
         Product product = modelMapper.map(productDTO, Product.class);
         product.setImage("default.png");
         product.setCategory(category);
-        double specialPrice = product.getPrice() - (product.getDiscount() * 0.01) * product.getPrice();
+        double specialPrice = PriceUtils.specialPrice(product.getPrice(), product.getDiscount());
         product.setSpecialPrice(specialPrice);
+        product.setUser(currentSeller());
         Product savedProduct = productRepository.save(product);
-        return modelMapper.map(savedProduct, ProductDTO.class);
+        sellerStatsStore.apply(sellerId(savedProduct), SellerStatsStore.Contribution.of(savedProduct));
+        catalogVersion.bump();
+        auditLog.record(AuditAction.CREATE, AuditEntity.PRODUCT, savedProduct.getProductId());
+        return withImageVariants(modelMapper.map(savedProduct, ProductDTO.class));
     }
 
 
+    // coalesced outside the transaction: waiting callers must not each hold a pooled connection
     @Override
     public ProductResponse getAllProducts(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
+        String key = catalogVersion.current() + ":" + pageNumber + ":" + pageSize + ":" + sortBy + ":" + sortOrder.toLowerCase();
+        return queryCoalescer.execute("products.all", key, () -> readOnlyTransaction.execute(status ->
+                loadAllProducts(pageNumber, pageSize, sortBy, sortOrder)));
+    }
+
+    private ProductResponse loadAllProducts(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
         Sort sortByAndOrder = sortOrder.equalsIgnoreCase("asc") ?
                 Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
 
@@ -75,6 +126,7 @@ public class ProductServiceImpl implements ProductService {
         }
 
         List<ProductDTO> productDTOS = mappingUtils.mapList(productPage.getContent(), ProductDTO.class);
+        productDTOS.forEach(this::withImageVariants);
 
         ProductResponse productResponse = new ProductResponse();
         productResponse.setContent(productDTOS);
@@ -90,6 +142,12 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     public ProductResponse searchByCategory(Long categoryId, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
+        String key = catalogVersion.current() + ":" + categoryId + ":" + pageNumber + ":" + pageSize + ":" + sortBy + ":" + sortOrder.toLowerCase();
+        return queryCoalescer.execute("products.by-category", key, () -> readOnlyTransaction.execute(status ->
+                loadByCategory(categoryId, pageNumber, pageSize, sortBy, sortOrder)));
+    }
+
+    private ProductResponse loadByCategory(Long categoryId, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
         Category category = categoryRepository.findById(categoryId)
                 .orElseThrow(() ->
                         new ResourceNotFoundException("Category", "categoryId", categoryId));
@@ -107,6 +165,7 @@ public class ProductServiceImpl implements ProductService {
             throw new APIException(category.getCategoryName() + " category does not have any products");
         }
         List<ProductDTO> productDTOS = mappingUtils.mapList(products, ProductDTO.class);
+        productDTOS.forEach(this::withImageVariants);
 
         ProductResponse productResponse = new ProductResponse();
         productResponse.setContent(productDTOS);
@@ -119,6 +178,34 @@ public class ProductServiceImpl implements ProductService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public ProductBatchResponse getProductsByIds(List<Long> productIds) {
+        Set<Long> ids = new LinkedHashSet<>(productIds);
+        if (ids.isEmpty()) {
+            throw new APIException("At least one product id is required");
+        }
+        if (ids.size() > maxBatchIds) {
+            throw new APIException("At most " + maxBatchIds + " product ids can be requested at once");
+        }
+
+        Map<Long, ProductDTO> found = new HashMap<>();
+        productRepository.findProductDTOsByIds(ids).forEach(dto -> found.put(dto.getProductId(), dto));
+
+        List<ProductDTO> content = new ArrayList<>(found.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : ids) {
+            ProductDTO productDTO = found.get(id);
+            if (productDTO == null) {
+                missingIds.add(id);
+            } else {
+                content.add(withImageVariants(productDTO));
+            }
+        }
+        return new ProductBatchResponse(content, missingIds);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public ProductResponse searchProductByKeyword(String keyword, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
         Sort sortByAndOrder = sortOrder.equalsIgnoreCase("asc")
                 ? Sort.by(sortBy).ascending()
@@ -129,6 +216,7 @@ public class ProductServiceImpl implements ProductService {
 
         List<Product> products = pageProducts.getContent();
         List<ProductDTO> productDTOS = mappingUtils.mapList(products, ProductDTO.class);
+        productDTOS.forEach(this::withImageVariants);
 
         if (products.isEmpty()) {
             throw new APIException("Products not found with keyword: " + keyword);
@@ -146,34 +234,44 @@ public class ProductServiceImpl implements ProductService {
 
 
     @Override
+    @Transactional
     public ProductDTO updateProduct(Long productId, ProductDTO productDTO) {
         Product existingProduct = productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "id", productId));
+        SellerStatsStore.Contribution before = SellerStatsStore.Contribution.of(existingProduct);
         Product product = modelMapper.map(productDTO, Product.class);
         existingProduct.setProductName(product.getProductName());
         existingProduct.setProductDescription(product.getProductDescription());
         existingProduct.setPrice(product.getPrice());
         existingProduct.setDiscount(product.getDiscount());
-        double specialPrice = product.getPrice() - (product.getDiscount() * 0.01) * product.getPrice();
+        double specialPrice = PriceUtils.specialPrice(product.getPrice(), product.getDiscount());
         existingProduct.setSpecialPrice(specialPrice);
         existingProduct.setQuantity(product.getQuantity());
 
-
-        return modelMapper.map(productRepository.save(existingProduct), ProductDTO.class);
+        Product savedProduct = productRepository.save(existingProduct);
+        sellerStatsStore.apply(sellerId(savedProduct), SellerStatsStore.Contribution.of(savedProduct).minus(before));
+        catalogVersion.bump();
+        auditLog.record(AuditAction.UPDATE, AuditEntity.PRODUCT, productId);
+        return withImageVariants(modelMapper.map(savedProduct, ProductDTO.class));
     }
 
     @Override
+    @Transactional
     public ProductDTO deleteProduct(Long productId) {
-        if (!productRepository.existsById(productId)) {
-            throw new ResourceNotFoundException("Product", "id", productId);
-        }
+        // usually a second-level cache hit; the row is only needed for the response and the seller's totals
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "id", productId));
-        productRepository.delete(product);
+        if (productRepository.softDelete(productId, Instant.now()) == 0) {
+            throw new ResourceNotFoundException("Product", "id", productId);
+        }
+        sellerStatsStore.apply(sellerId(product), SellerStatsStore.Contribution.NONE.minus(SellerStatsStore.Contribution.of(product)));
+        catalogVersion.bump();
+        auditLog.record(AuditAction.DELETE, AuditEntity.PRODUCT, productId);
         return modelMapper.map(product, ProductDTO.class);
     }
 
     @Override
+    @Transactional
     public ProductDTO updateProductImage(Long productId, MultipartFile image) throws IOException {
 
         Product productFromDb = productRepository.findById(productId)
@@ -185,10 +283,33 @@ public class ProductServiceImpl implements ProductService {
         productFromDb.setImage(filename);
 
         Product updatedProduct = productRepository.save(productFromDb);
+        catalogVersion.bump();
+        auditLog.record(AuditAction.IMAGE_UPDATE, AuditEntity.PRODUCT, updatedProduct.getProductId());
+
+        // variants are generated in the background; the original is served until they exist
+        imageVariantService.generateVariantsAsync(filename);
+
+        return withImageVariants(modelMapper.map(updatedProduct, ProductDTO.class));
 
-        return modelMapper.map(updatedProduct, ProductDTO.class);
 
+    }
+
+    // a reference is enough to set the foreign key; the seller row itself is never loaded
+    private User currentSeller() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserDetailsImpl userDetails) {
+            return userRepository.getReferenceById(userDetails.getId());
+        }
+        return null;
+    }
+
+    private static Long sellerId(Product product) {
+        return product.getUser() != null ? product.getUser().getUserId() : null;
+    }
 
+    private ProductDTO withImageVariants(ProductDTO productDTO) {
+        productDTO.setImageVariants(imageVariantService.resolveVariants(productDTO.getImage()));
+        return productDTO;
     }
 
 
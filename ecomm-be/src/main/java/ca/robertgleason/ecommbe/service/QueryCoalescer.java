@@ -0,0 +1,94 @@
+package ca.robertgleason.ecommbe.service;
+
+import ca.robertgleason.ecommbe.excepetions.APIException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight execution of identical concurrent reads: the first caller for a key runs the
+ * loader, later callers for the same key wait on its future instead of issuing the same queries.
+ * The flight is forgotten as soon as it completes, so this never serves stale results; it only
+ * collapses calls that overlap in time.
+ * <p>
+ * A follower that waits longer than {@code app.coalescer.wait-timeout} runs the loader itself.
+ * Metrics are tagged by operation rather than by key to keep their cardinality bounded.
+ */
+@Component
+public class QueryCoalescer {
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.coalescer.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.coalescer.wait-timeout:PT5S}")
+    private Duration waitTimeout;
+
+    public QueryCoalescer(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        meterRegistry.gaugeMapSize("catalog.coalescer.in.flight", Tags.empty(), inFlight);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, String key, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        String flightKey = operation + '|' + key;
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(flightKey, flight);
+        if (existing == null) {
+            count(operation, "leader");
+            try {
+                T result = loader.get();
+                flight.complete(result);
+                return result;
+            } catch (RuntimeException | Error e) {
+                flight.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(flightKey, flight);
+            }
+        }
+
+        count(operation, "joined");
+        Timer.Sample wait = Timer.start(meterRegistry);
+        try {
+            return (T) existing.get(waitTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            count(operation, "timeout");
+            return loader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new APIException("Interrupted while waiting for " + operation);
+        } catch (ExecutionException e) {
+            // followers see the leader's failure, e.g. the APIException for an empty page
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            wait.stop(meterRegistry.timer("catalog.coalescer.wait", "operation", operation));
+        }
+    }
+
+    private void count(String operation, String outcome) {
+        meterRegistry.counter("catalog.coalescer.calls", "operation", operation, "outcome", outcome).increment();
+    }
+}
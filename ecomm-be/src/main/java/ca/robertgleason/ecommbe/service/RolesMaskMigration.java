@@ -0,0 +1,47 @@
+package ca.robertgleason.ecommbe.service;
+
+import ca.robertgleason.ecommbe.model.AppRole;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Backfills {@code users.roles_mask} from the {@code user_roles} join table in one set-based
+ * update. Only users whose mask is still 0 are touched, so the run is idempotent and cheap once
+ * the data is migrated. Disable with {@code app.security.roles-mask.migrate=false}.
+ */
+@Component
+@Order(1)
+@ConditionalOnProperty(name = "app.security.roles-mask.migrate", havingValue = "true", matchIfMissing = true)
+public class RolesMaskMigration implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(RolesMaskMigration.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RolesMaskMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(String... args) {
+        // each role appears at most once per user, so summing the bits is the same as OR-ing them
+        StringBuilder bit = new StringBuilder("case r.role_name");
+        for (AppRole role : AppRole.values()) {
+            bit.append(" when '").append(role.name()).append("' then ").append(role.mask());
+        }
+        bit.append(" else 0 end");
+
+        int migrated = jdbcTemplate.update("update users u set roles_mask = (" +
+                "select coalesce(sum(" + bit + "), 0) from user_roles ur join roles r on r.role_id = ur.role_id " +
+                "where ur.user_id = u.user_id) " +
+                "where u.roles_mask = 0 and exists (select 1 from user_roles ur where ur.user_id = u.user_id)");
+        if (migrated > 0) {
+            log.info("Migrated roles of {} users from user_roles to roles_mask", migrated);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package ca.robertgleason.ecommbe.service;
+
+import ca.robertgleason.ecommbe.payload.SellerProductsResponse;
+import ca.robertgleason.ecommbe.payload.SellerStatsDTO;
+import org.springframework.stereotype.Service;
+
+@Service
+public interface SellerService {
+    SellerStatsDTO getStats(Long sellerId);
+
+    SellerProductsResponse getProducts(Long sellerId, Long afterId, Integer pageSize);
+}
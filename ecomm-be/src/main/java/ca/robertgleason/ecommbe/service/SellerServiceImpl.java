@@ -0,0 +1,57 @@
+package ca.robertgleason.ecommbe.service;
+
+import ca.robertgleason.ecommbe.excepetions.APIException;
+import ca.robertgleason.ecommbe.payload.ProductDTO;
+import ca.robertgleason.ecommbe.payload.SellerProductsResponse;
+import ca.robertgleason.ecommbe.payload.SellerStatsDTO;
+import ca.robertgleason.ecommbe.repository.ProductRepository;
+import ca.robertgleason.ecommbe.repository.SellerStatsRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+public class SellerServiceImpl implements SellerService {
+
+    private final SellerStatsRepository sellerStatsRepository;
+    private final ProductRepository productRepository;
+    private final ImageVariantService imageVariantService;
+
+    @Value("${app.seller.products.max-page-size:200}")
+    private int maxPageSize;
+
+    public SellerServiceImpl(SellerStatsRepository sellerStatsRepository, ProductRepository productRepository,
+                             ImageVariantService imageVariantService) {
+        this.sellerStatsRepository = sellerStatsRepository;
+        this.productRepository = productRepository;
+        this.imageVariantService = imageVariantService;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public SellerStatsDTO getStats(Long sellerId) {
+        // a seller without a row yet has simply never listed anything
+        return sellerStatsRepository.findById(sellerId)
+                .map(stats -> new SellerStatsDTO(sellerId, stats.getProductCount(), stats.getTotalStock(),
+                        stats.getInventoryValue(), stats.getReconciledAt()))
+                .orElseGet(() -> new SellerStatsDTO(sellerId, 0L, 0L, 0.0, null));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public SellerProductsResponse getProducts(Long sellerId, Long afterId, Integer pageSize) {
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new APIException("Page size must be between 1 and " + maxPageSize);
+        }
+        // one extra row tells whether another page follows without a count query
+        List<ProductDTO> rows = productRepository.findSellerProductDTOs(sellerId, afterId, Limit.of(pageSize + 1));
+        boolean lastPage = rows.size() <= pageSize;
+        List<ProductDTO> content = lastPage ? rows : rows.subList(0, pageSize);
+        content.forEach(productDTO -> productDTO.setImageVariants(imageVariantService.resolveVariants(productDTO.getImage())));
+        Long nextAfterId = lastPage ? null : content.get(content.size() - 1).getProductId();
+        return new SellerProductsResponse(content, pageSize, nextAfterId, lastPage);
+    }
+}
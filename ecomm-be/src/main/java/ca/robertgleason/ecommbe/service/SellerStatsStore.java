@@ -0,0 +1,206 @@
+package ca.robertgleason.ecommbe.service;
+
+import ca.robertgleason.ecommbe.model.Product;
+import ca.robertgleason.ecommbe.utilties.SavepointUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maintains {@code seller_stats}. Writers call {@link #apply} with the change their transaction
+ * makes to a seller's totals; the delta is added to the seller's row in the caller's transaction,
+ * so it commits or rolls back with the product change itself, needs no second connection, and a
+ * dashboard read is a single-row lookup.
+ * <p>
+ * The row is created on a seller's first write: every delta goes through one {@code merge} that
+ * adds to the row if it exists and inserts it otherwise. Two first writes can still race to
+ * insert it, and the loser gets a duplicate key once the winner commits, so the merge runs in a
+ * savepoint; the loser rolls back only the merge, not the caller's product change, and repeats
+ * it against the winner's row.
+ * <p>
+ * Writes that bypass the services (bulk loads, manual SQL) leave the totals stale, so
+ * {@link #reconcile()} periodically recomputes every seller from {@code products}. It locks the
+ * seller's row before aggregating; a concurrent writer either commits its delta first, and the
+ * aggregate sees its product change, or waits and applies its delta on top of the recomputed row.
+ */
+@Component
+public class SellerStatsStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SellerStatsStore.class);
+
+    // sums of doubles differ in the last bits depending on the order they were added in
+    private static final double VALUE_TOLERANCE = 0.005;
+
+    private static final String ADD_DELTA = "merge into seller_stats t using (values (cast(? as bigint), " +
+            "cast(? as bigint), cast(? as bigint), cast(? as double precision))) " +
+            "as d(seller_id, product_count, total_stock, inventory_value) on t.seller_id = d.seller_id " +
+            "when matched then update set product_count = t.product_count + d.product_count, " +
+            "total_stock = t.total_stock + d.total_stock, inventory_value = t.inventory_value + d.inventory_value " +
+            "when not matched then insert (seller_id, product_count, total_stock, inventory_value) " +
+            "values (d.seller_id, d.product_count, d.total_stock, d.inventory_value)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer reconcileTimer;
+    private final Counter reconciledSellers;
+    private final Counter driftedSellers;
+
+    @Value("${app.seller-stats.reconcile-page-size:500}")
+    private int reconcilePageSize;
+
+    public SellerStatsStore(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reconcileTimer = meterRegistry.timer("seller.stats.reconcile");
+        this.reconciledSellers = meterRegistry.counter("seller.stats.reconciled");
+        this.driftedSellers = meterRegistry.counter("seller.stats.drifted");
+    }
+
+    /**
+     * Adds {@code delta} to the seller's totals in the current transaction. A null seller (products
+     * created outside an authenticated request) has no totals to maintain.
+     */
+    public void apply(Long sellerId, Contribution delta) {
+        if (sellerId == null || delta.isZero()) {
+            return;
+        }
+        add(sellerId, delta);
+    }
+
+    /**
+     * Batch form of {@link #apply}. Rows are updated in seller id order so that two batches
+     * touching the same sellers cannot deadlock.
+     */
+    public void applyAll(Map<Long, Contribution> deltas) {
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        new TreeMap<>(deltas).forEach((sellerId, delta) -> {
+            if (sellerId != null && !delta.isZero()) {
+                args.add(new Object[]{sellerId, delta.products(), delta.stock(), delta.value()});
+            }
+        });
+        if (args.isEmpty()) {
+            return;
+        }
+        if (!SavepointUtils.runUnlessDuplicateKey(jdbcTemplate, () -> jdbcTemplate.batchUpdate(ADD_DELTA, args))) {
+            // the savepoint undid the whole batch; redo it row by row now that the racing rows exist
+            args.forEach(row -> add((Long) row[0], new Contribution((Long) row[1], (Long) row[2], (Double) row[3])));
+        }
+    }
+
+    /**
+     * Takes the products of a category that is being deleted out of their sellers' totals. Call it
+     * in the deleting transaction before the products are marked; it only counts unmarked ones.
+     */
+    public void removeCategory(Long categoryId) {
+        Map<Long, Contribution> deltas = new HashMap<>();
+        jdbcTemplate.query("select seller_id, count(*), coalesce(sum(quantity), 0), " +
+                        "coalesce(sum(quantity * coalesce(special_price, price, 0)), 0) from products " +
+                        "where category_id = ? and seller_id is not null and deleted_at is null group by seller_id",
+                rs -> {
+                    deltas.put(rs.getLong(1), new Contribution(-rs.getLong(2), -rs.getLong(3), -rs.getDouble(4)));
+                },
+                categoryId);
+        applyAll(deltas);
+    }
+
+    @Scheduled(initialDelayString = "${app.seller-stats.reconcile-interval-ms:600000}",
+            fixedDelayString = "${app.seller-stats.reconcile-interval-ms:600000}")
+    public synchronized void reconcile() {
+        reconcileTimer.record(() -> {
+            long afterId = 0;
+            while (true) {
+                // keyset over sellers that have products or a row, so sellers whose last product was deleted are zeroed too
+                List<Long> sellerIds = jdbcTemplate.queryForList(
+                        "select seller_id from (select distinct seller_id from products where seller_id > ? " +
+                                "union select seller_id from seller_stats where seller_id > ?) s order by seller_id limit ?",
+                        Long.class, afterId, afterId, reconcilePageSize);
+                for (Long sellerId : sellerIds) {
+                    try {
+                        reconcile(sellerId);
+                    } catch (RuntimeException e) {
+                        log.warn("Reconciling stats of seller {} failed: {}", sellerId, e.getMessage());
+                    }
+                }
+                if (sellerIds.size() < reconcilePageSize) {
+                    return;
+                }
+                afterId = sellerIds.get(sellerIds.size() - 1);
+            }
+        });
+    }
+
+    private void reconcile(Long sellerId) {
+        // one short transaction per seller keeps the row lock, and writers waiting on it, brief
+        transactionTemplate.executeWithoutResult(status -> {
+            // a seller seen only in products has no row to lock yet
+            add(sellerId, Contribution.NONE);
+            Contribution stored = jdbcTemplate.queryForObject(
+                    "select product_count, total_stock, inventory_value from seller_stats where seller_id = ? for update",
+                    (rs, rowNum) -> new Contribution(rs.getLong(1), rs.getLong(2), rs.getDouble(3)), sellerId);
+            Contribution actual = jdbcTemplate.queryForObject(
+                    "select count(*), coalesce(sum(quantity), 0), coalesce(sum(quantity * coalesce(special_price, price, 0)), 0) " +
+                            "from products where seller_id = ? and deleted_at is null",
+                    (rs, rowNum) -> new Contribution(rs.getLong(1), rs.getLong(2), rs.getDouble(3)), sellerId);
+            if (stored.products() != actual.products() || stored.stock() != actual.stock()
+                    || Math.abs(stored.value() - actual.value()) > VALUE_TOLERANCE) {
+                driftedSellers.increment();
+                log.debug("Seller {} stats drifted: stored {}, actual {}", sellerId, stored, actual);
+            }
+            jdbcTemplate.update("update seller_stats set product_count = ?, total_stock = ?, inventory_value = ?, " +
+                            "reconciled_at = ? where seller_id = ?",
+                    actual.products(), actual.stock(), actual.value(), Timestamp.from(Instant.now()), sellerId);
+        });
+        reconciledSellers.increment();
+    }
+
+    private void add(Long sellerId, Contribution delta) {
+        Object[] args = {sellerId, delta.products(), delta.stock(), delta.value()};
+        if (!SavepointUtils.runUnlessDuplicateKey(jdbcTemplate, () -> jdbcTemplate.update(ADD_DELTA, args))) {
+            // a concurrent first write committed the row, so this time the merge matches it
+            jdbcTemplate.update(ADD_DELTA, args);
+        }
+    }
+
+    /**
+     * What one product contributes to its seller's totals; differences of two contributions are
+     * the deltas passed to {@link #apply}. Stock is valued at the price it sells for.
+     */
+    public record Contribution(long products, long stock, double value) {
+
+        public static final Contribution NONE = new Contribution(0, 0, 0);
+
+        public static Contribution of(Product product) {
+            long quantity = product.getQuantity() != null ? product.getQuantity() : 0;
+            Double unitPrice = product.getSpecialPrice() != null ? product.getSpecialPrice() : product.getPrice();
+            return new Contribution(1, quantity, quantity * (unitPrice != null ? unitPrice : 0));
+        }
+
+        public Contribution plus(Contribution other) {
+            return new Contribution(products + other.products, stock + other.stock, value + other.value);
+        }
+
+        public Contribution minus(Contribution other) {
+            return new Contribution(products - other.products, stock - other.stock, value - other.value);
+        }
+
+        boolean isZero() {
+            return products == 0 && stock == 0 && value == 0;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package ca.robertgleason.ecommbe.utilties;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+public final class AddressNormalizer {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private AddressNormalizer() {
+    }
+
+    /**
+     * Trims and collapses runs of whitespace; null stays null. This is the form addresses are
+     * stored in, so it keeps the user's casing.
+     */
+    public static String clean(String value) {
+        return value == null ? null : WHITESPACE.matcher(value.strip()).replaceAll(" ");
+    }
+
+    /**
+     * Postal codes are compared and stored without spaces, in upper case: "m5v 2t6" is "M5V2T6".
+     */
+    public static String cleanZipCode(String zipCode) {
+        return zipCode == null ? null : WHITESPACE.matcher(zipCode).replaceAll("").toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * SHA-256, hex encoded, of the case-folded cleaned fields. Two addresses that differ only in
+     * whitespace or case get the same hash. Fields are joined with a separator that cannot occur
+     * in them, so moving text from one field to the next changes the hash.
+     */
+    public static String hash(String street, String buildingName, String city, String state, String country, String zipCode) {
+        String canonical = String.join("\u001f",
+                fold(clean(street)), fold(clean(buildingName)), fold(clean(city)),
+                fold(clean(state)), fold(clean(country)), fold(cleanZipCode(zipCode)));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String fold(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,5 +1,6 @@
 package ca.robertgleason.ecommbe.utilties;
 
+import io.micrometer.core.annotation.Timed;
 import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Component;
 
@@ -14,6 +15,7 @@ public class MappingUtils {
         this.modelMapper = modelMapper;
     }
 
+    @Timed(value = "mapping.map-list", description = "Entity to DTO list mapping")
     public <S, T> List<T> mapList(List<S> source, Class<T> targetClass) {
         return source.stream()
                 .map(item -> modelMapper.map(item, targetClass))
@@ -0,0 +1,14 @@
+package ca.robertgleason.ecommbe.utilties;
+
+public final class PriceUtils {
+
+    private PriceUtils() {
+    }
+
+    /**
+     * Price after applying a percentage discount, e.g. a price of 100 with a discount of 25 gives 75.
+     */
+    public static double specialPrice(double price, double discount) {
+        return price - (discount * 0.01) * price;
+    }
+}
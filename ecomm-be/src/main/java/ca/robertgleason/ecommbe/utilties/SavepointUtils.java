@@ -0,0 +1,48 @@
+package ca.robertgleason.ecommbe.utilties;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Savepoint;
+
+public final class SavepointUtils {
+
+    private SavepointUtils() {
+    }
+
+    /**
+     * Runs {@code work} and returns false instead of throwing if it hits a duplicate key, e.g. when
+     * a concurrent transaction inserted the same row first. Inside a transaction the work runs in a
+     * JDBC savepoint, so the failed statement is rolled back without the rest of the caller's
+     * transaction. The JPA transaction manager has no savepoint support, so this takes them on the
+     * connection the transaction is bound to.
+     */
+    public static boolean runUnlessDuplicateKey(JdbcTemplate jdbcTemplate, Runnable work) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            // every statement commits on its own, a failed one leaves nothing to undo
+            try {
+                work.run();
+                return true;
+            } catch (DuplicateKeyException e) {
+                return false;
+            }
+        }
+        Savepoint savepoint = jdbcTemplate.execute((ConnectionCallback<Savepoint>) connection -> connection.setSavepoint());
+        try {
+            work.run();
+        } catch (DuplicateKeyException e) {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                connection.rollback(savepoint);
+                return null;
+            });
+            return false;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            connection.releaseSavepoint(savepoint);
+            return null;
+        });
+        return true;
+    }
+}
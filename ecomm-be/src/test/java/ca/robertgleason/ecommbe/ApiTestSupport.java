@@ -0,0 +1,56 @@
+package ca.robertgleason.ecommbe;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Base for tests that call the API through the embedded container. Every subclass shares this one
+ * configuration, so they all run against a single cached application context; keep per-test
+ * properties out of subclasses. Uploads are spooled to disk ({@code file-size-threshold=0}) under
+ * a relative image root like the default {@code images/}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "project.image=target/upload-test-images/",
+        "spring.servlet.multipart.file-size-threshold=0"
+})
+public abstract class ApiTestSupport {
+
+    @Autowired
+    protected TestRestTemplate restTemplate;
+
+    @Value("${spring.app.jwtCookieName}")
+    private String cookieName;
+
+    protected String signIn(String username, String password) {
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/auth/signin",
+                Map.of("username", username, "password", password), String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return response.getHeaders().get(HttpHeaders.SET_COOKIE).stream()
+                .filter(header -> header.startsWith(cookieName + "="))
+                .map(header -> header.substring(0, header.indexOf(';')))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    protected Map<?, ?> post(String path, Map<String, Object> body, String cookie) {
+        ResponseEntity<Map> response = restTemplate.postForEntity(path, new HttpEntity<>(body, headers(cookie)), Map.class);
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        return response.getBody();
+    }
+
+    protected static HttpHeaders headers(String cookie) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.COOKIE, cookie);
+        return headers;
+    }
+}
@@ -0,0 +1,148 @@
+package ca.robertgleason.ecommbe.audit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Writes real segments into a temp directory and reads them back. Every record uses the actor
+ * "admin", so each one takes {@link #RECORD_SIZE} bytes and offsets inside a segment are known.
+ */
+class AuditLogTest {
+
+    private static final int RECORD_SIZE = AuditLogFormat.RECORD_HEADER_SIZE + AuditLogFormat.FIXED_BODY_SIZE + 5;
+    // room for 21 records, so 100 records span five segments
+    private static final int SMALL_SEGMENT = 1024;
+    private static final int LARGE_SEGMENT = 64 * 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recordsRoundTripAcrossSegmentRotation() throws IOException {
+        append(SMALL_SEGMENT, 1, 100);
+
+        assertEquals(5, AuditLogReader.segments(directory).size());
+        List<AuditRecord> records = readAll(1);
+        assertEquals(100, records.size());
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals(new AuditRecord(i + 1, 1000L + i + 1, 7, "admin", AuditAction.UPDATE, AuditEntity.PRODUCT, i + 1),
+                    records.get(i));
+        }
+    }
+
+    @Test
+    void tailStartsMidSegmentAndFollowsRotation() throws IOException {
+        List<AuditRecord> seen = new ArrayList<>();
+        try (AuditLogWriter writer = new AuditLogWriter(directory, SMALL_SEGMENT);
+             AuditLogReader.Tailer tailer = AuditLogReader.tail(directory, 30)) {
+            for (int i = 1; i <= 40; i++) {
+                writer.append(1000L + i, 7, "admin", AuditAction.UPDATE, AuditEntity.PRODUCT, i);
+            }
+            // 30 is the ninth record of the second segment
+            while (tailer.poll(seen::add, 100) > 0) {
+            }
+            assertEquals(sequences(30, 40), sequencesOf(seen));
+
+            // the writer rotates twice more while the tailer is caught up
+            for (int i = 41; i <= 80; i++) {
+                writer.append(1000L + i, 7, "admin", AuditAction.UPDATE, AuditEntity.PRODUCT, i);
+            }
+            while (tailer.poll(seen::add, 100) > 0) {
+            }
+        }
+        assertEquals(sequences(30, 80), sequencesOf(seen));
+    }
+
+    @Test
+    void tornTailIsDiscardedAndOverwrittenOnReopen() throws IOException {
+        append(LARGE_SEGMENT, 1, 12);
+        Path segment = AuditLogReader.segments(directory).get(0);
+        // a bad CRC on record 10; records 11 and 12 behind it stand for pages that reached the disk out of order
+        corrupt(segment, AuditLogFormat.HEADER_SIZE + 9 * RECORD_SIZE + AuditLogFormat.RECORD_HEADER_SIZE);
+
+        try (AuditLogWriter writer = new AuditLogWriter(directory, LARGE_SEGMENT)) {
+            assertEquals(10, writer.append(5000, 7, "admin", AuditAction.DELETE, AuditEntity.CATEGORY, 99));
+        }
+
+        List<AuditRecord> records = readAll(1);
+        assertEquals(sequences(1, 10), sequencesOf(records));
+        assertEquals(new AuditRecord(10, 5000, 7, "admin", AuditAction.DELETE, AuditEntity.CATEGORY, 99), records.get(9));
+    }
+
+    @Test
+    void truncatedRecordIsDiscardedOnReopen() throws IOException {
+        append(LARGE_SEGMENT, 1, 3);
+        Path segment = AuditLogReader.segments(directory).get(0);
+        // the length of a fourth record made it to disk, its body did not
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, RECORD_SIZE - AuditLogFormat.RECORD_HEADER_SIZE),
+                    AuditLogFormat.HEADER_SIZE + 3L * RECORD_SIZE);
+        }
+
+        append(LARGE_SEGMENT, 4, 2);
+
+        assertEquals(sequences(1, 5), sequencesOf(readAll(1)));
+    }
+
+    @Test
+    void segmentWithZeroHeaderIsTreatedAsEmpty() throws IOException {
+        append(LARGE_SEGMENT, 1, 5);
+        // the next segment was created, but its header never reached the disk
+        Path empty = AuditLogFormat.segmentPath(directory, 6);
+        Files.write(empty, new byte[LARGE_SEGMENT]);
+
+        append(LARGE_SEGMENT, 6, 2);
+
+        assertEquals(AuditLogFormat.MAGIC, ByteBuffer.wrap(Files.readAllBytes(empty)).getInt(0));
+        assertEquals(sequences(1, 7), sequencesOf(readAll(1)));
+    }
+
+    private void append(int segmentSize, long firstEntityId, int count) throws IOException {
+        try (AuditLogWriter writer = new AuditLogWriter(directory, segmentSize)) {
+            for (long id = firstEntityId; id < firstEntityId + count; id++) {
+                assertEquals(id, writer.append(1000L + id, 7, "admin", AuditAction.UPDATE, AuditEntity.PRODUCT, id));
+            }
+        }
+    }
+
+    private List<AuditRecord> readAll(long fromSequence) throws IOException {
+        List<AuditRecord> records = new ArrayList<>();
+        long count = AuditLogReader.readAll(directory, fromSequence, records::add);
+        assertEquals(records.size(), count);
+        return records;
+    }
+
+    private static void corrupt(Path segment, long offset) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, offset);
+            b.put(0, (byte) ~b.get(0));
+            channel.write(b.rewind(), offset);
+        }
+        assertTrue(Files.size(segment) > offset);
+    }
+
+    private static List<Long> sequences(long from, long to) {
+        List<Long> sequences = new ArrayList<>();
+        for (long s = from; s <= to; s++) {
+            sequences.add(s);
+        }
+        return sequences;
+    }
+
+    private static List<Long> sequencesOf(List<AuditRecord> records) {
+        return records.stream().map(AuditRecord::sequence).toList();
+    }
+}
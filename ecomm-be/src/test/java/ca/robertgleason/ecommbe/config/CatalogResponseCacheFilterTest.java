@@ -0,0 +1,107 @@
+package ca.robertgleason.ecommbe.config;
+
+import ca.robertgleason.ecommbe.service.CatalogVersion;
+import ca.robertgleason.ecommbe.service.ImageCache;
+import ca.robertgleason.ecommbe.service.ImageVariantServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CatalogResponseCacheFilterTest {
+
+    private final CatalogVersion catalogVersion = new CatalogVersion();
+    private final CatalogResponseCacheFilter filter = new CatalogResponseCacheFilter(catalogVersion, 100, new SimpleMeterRegistry());
+    private final AtomicInteger renders = new AtomicInteger();
+
+    @Test
+    void hitsReplayTheStoredBodyUntilTheCatalogVersionChanges() throws Exception {
+        assertEquals("render 1", get("/api/public/products?pageNumber=0"));
+        assertEquals("render 1", get("/api/public/products?pageNumber=0"));
+        assertEquals("render 2", get("/api/public/products?pageNumber=1"));
+
+        catalogVersion.bump();
+        assertEquals("render 3", get("/api/public/products?pageNumber=0"));
+        assertEquals("render 3", get("/api/public/products?pageNumber=0"));
+    }
+
+    /**
+     * Listings embed variant names, so a finished variant set must drop pages cached while the
+     * variants still pointed at the original.
+     */
+    @Test
+    void finishedVariantGenerationInvalidatesCachedPages(@TempDir Path imageRoot) throws Exception {
+        ImageIO.write(new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB), "png", imageRoot.resolve("fresh.png").toFile());
+        ImageVariantServiceImpl variants = new ImageVariantServiceImpl(imageRoot.toString(), 1, 10, 100, 600_000,
+                40_000_000, new ImageCache(1 << 20, 1 << 16, new SimpleMeterRegistry()), catalogVersion);
+        try {
+            assertEquals("render 1", get("/api/public/products"));
+            variants.generateVariantsAsync("fresh.png");
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (catalogVersion.current() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals("render 2", get("/api/public/products"));
+        } finally {
+            variants.shutdown();
+        }
+    }
+
+    @Test
+    void gzipIsAcceptedWhenListedOrCoveredByWildcard() {
+        assertTrue(CatalogResponseCacheFilter.acceptsGzip("gzip"));
+        assertTrue(CatalogResponseCacheFilter.acceptsGzip("deflate, GZIP;q=0.5"));
+        assertTrue(CatalogResponseCacheFilter.acceptsGzip("x-gzip"));
+        assertTrue(CatalogResponseCacheFilter.acceptsGzip("br;q=1.0, *;q=0.1"));
+    }
+
+    @Test
+    void zeroQualityRefusesGzip() {
+        assertFalse(CatalogResponseCacheFilter.acceptsGzip("gzip;q=0"));
+        assertFalse(CatalogResponseCacheFilter.acceptsGzip("gzip; q=0.000, deflate"));
+        // an explicit refusal wins over an acceptable wildcard
+        assertFalse(CatalogResponseCacheFilter.acceptsGzip("*, gzip;q=0"));
+        assertFalse(CatalogResponseCacheFilter.acceptsGzip("br, *;q=0"));
+    }
+
+    @Test
+    void missingOrUnrelatedHeaderDoesNotAcceptGzip() {
+        assertFalse(CatalogResponseCacheFilter.acceptsGzip(null));
+        assertFalse(CatalogResponseCacheFilter.acceptsGzip(""));
+        assertFalse(CatalogResponseCacheFilter.acceptsGzip("identity"));
+        assertFalse(CatalogResponseCacheFilter.acceptsGzip("gzipx"));
+    }
+
+    private String get(String uri) throws Exception {
+        int query = uri.indexOf('?');
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", query < 0 ? uri : uri.substring(0, query));
+        if (query >= 0) {
+            request.setQueryString(uri.substring(query + 1));
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+                resp.setContentType("application/json");
+                resp.getWriter().write("render " + renders.incrementAndGet());
+            }
+        }));
+        return response.getContentAsString();
+    }
+}
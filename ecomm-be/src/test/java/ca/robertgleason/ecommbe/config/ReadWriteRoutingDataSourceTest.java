@@ -0,0 +1,177 @@
+package ca.robertgleason.ecommbe.config;
+
+import ca.robertgleason.ecommbe.service.CatalogVersion;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Routes against two separate in-memory H2 databases, each tagged with its own name, so the
+ * database a query reached is visible in its result.
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private static final String HANDLING_MODE = "spring.jpa.properties.hibernate.connection.handling_mode";
+
+    private ReadWriteRoutingDataSource routing;
+    private DataSource primary;
+    private DataSource replica;
+    private DataSource dataSource;
+    private CatalogVersion catalogVersion;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    void setUp() {
+        primary = node("primary");
+        replica = node("replica");
+        catalogVersion = new CatalogVersion();
+        routing = new ReadWriteRoutingDataSource(primary, List.of(replica), Duration.ofSeconds(5), catalogVersion);
+        routing.afterPropertiesSet();
+
+        dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplica() {
+        assertEquals("replica", readOnly.execute(status -> currentNode()));
+    }
+
+    @Test
+    void writeTransactionsAndNonTransactionalCallsGoToPrimary() {
+        assertEquals("primary", readWrite.execute(status -> currentNode()));
+        assertEquals("primary", currentNode());
+    }
+
+    @Test
+    void readsFollowOwnWritesToPrimary() {
+        authenticate("admin");
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("insert into node_log values ('write')"));
+        assertEquals("primary", readOnly.execute(status -> currentNode()));
+
+        authenticate("someone-else");
+        assertEquals("replica", readOnly.execute(status -> currentNode()));
+    }
+
+    @Test
+    void everyoneReadsFromPrimaryAfterCatalogWrite() {
+        authenticate("admin");
+        readWrite.executeWithoutResult(status -> catalogVersion.bump());
+
+        SecurityContextHolder.clearContext();
+        assertEquals("primary", readOnly.execute(status -> currentNode()));
+        authenticate("someone-else");
+        assertEquals("primary", readOnly.execute(status -> currentNode()));
+    }
+
+    /**
+     * Open-in-view binds one entity manager to the whole request. With the handling mode of the
+     * {@code replicas} profile, the write after a replica read must still reach the primary.
+     */
+    @Test
+    void writeAfterReadOnlyTransactionInOneJpaSessionGoesToPrimary() throws IOException {
+        String handlingMode = PropertiesLoaderUtils.loadProperties(new ClassPathResource("application-replicas.properties"))
+                .getProperty(HANDLING_MODE);
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setManagedTypes(PersistenceManagedTypes.of(NodeLog.class.getName()));
+        factoryBean.setJpaPropertyMap(Map.of("hibernate.connection.handling_mode", handlingMode));
+        factoryBean.afterPropertiesSet();
+        EntityManagerFactory entityManagerFactory = factoryBean.getObject();
+
+        JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+        TransactionTemplate jpaReadOnly = new TransactionTemplate(transactionManager);
+        jpaReadOnly.setReadOnly(true);
+        TransactionTemplate jpaReadWrite = new TransactionTemplate(transactionManager);
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+        try {
+            assertEquals("replica", jpaReadOnly.execute(status ->
+                    entityManager.createNativeQuery("select name from node").getSingleResult()));
+            jpaReadWrite.executeWithoutResult(status -> entityManager.persist(new NodeLog("signup")));
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            entityManager.close();
+            factoryBean.destroy();
+        }
+
+        assertEquals(1, new JdbcTemplate(primary).queryForObject("select count(*) from node_log", Integer.class));
+        assertEquals(0, new JdbcTemplate(replica).queryForObject("select count(*) from node_log", Integer.class));
+    }
+
+    private String currentNode() {
+        return jdbcTemplate.queryForObject("select name from node", String.class);
+    }
+
+    private static void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(username, null, AuthorityUtils.NO_AUTHORITIES));
+    }
+
+    private static DataSource node(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:routing_" + name + "_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table node (name varchar(20))");
+        jdbc.execute("create table node_log (entry varchar(20) primary key)");
+        jdbc.update("insert into node values (?)", name);
+        return dataSource;
+    }
+
+    @Entity
+    @Table(name = "node_log")
+    static class NodeLog {
+
+        @Id
+        private String entry;
+
+        protected NodeLog() {
+        }
+
+        NodeLog(String entry) {
+            this.entry = entry;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package ca.robertgleason.ecommbe.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UploadConcurrencyFilterTest {
+
+    private final UploadConcurrencyFilter filter = new UploadConcurrencyFilter(1, 50, new ObjectMapper());
+
+    /**
+     * The permit has to be held while the servlet reads the body, not only around the final move.
+     */
+    @Test
+    void multipartRequestOverTheLimitIsRejectedBeforeItsBodyIsRead() throws Exception {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() -> send("multipart/form-data; boundary=x", () -> {
+            reading.countDown();
+            await(release);
+        }));
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+
+        int[] bodiesRead = {0};
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(request("multipart/form-data; boundary=y"), rejected, chain(() -> bodiesRead[0]++));
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertTrue(rejected.getContentAsString().contains("Too many concurrent image uploads"));
+        assertEquals(0, bodiesRead[0]);
+
+        release.countDown();
+        assertEquals(200, first.get(5, TimeUnit.SECONDS));
+        assertEquals(1, filter.availablePermits());
+    }
+
+    @Test
+    void otherRequestsDoNotTakePermits() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> upload = CompletableFuture.supplyAsync(() ->
+                send("multipart/form-data; boundary=x", () -> await(release)));
+
+        assertEquals(200, send("application/json", () -> { }));
+        assertEquals(200, send(null, () -> { }));
+
+        release.countDown();
+        assertEquals(200, upload.get(5, TimeUnit.SECONDS));
+    }
+
+    private int send(String contentType, Runnable servlet) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            filter.doFilter(request(contentType), response, chain(servlet));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return response.getStatus();
+    }
+
+    private static MockHttpServletRequest request(String contentType) {
+        MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/api/products/1/image");
+        request.setContentType(contentType);
+        return request;
+    }
+
+    private static MockFilterChain chain(Runnable servlet) {
+        return new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                servlet.run();
+            }
+        });
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package ca.robertgleason.ecommbe.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "app.warmup.enabled=true",
+        "app.warmup.iterations=3"
+})
+class WarmupReadinessTest {
+
+    @Autowired
+    private ReadinessRecorder recorder;
+
+    @Autowired
+    private WarmupRunner warmupRunner;
+
+    @Autowired
+    private ApplicationAvailability availability;
+
+    @Test
+    void readinessWaitsForWarmup() {
+        assertTrue(warmupRunner.isComplete());
+        assertEquals(ReadinessState.ACCEPTING_TRAFFIC, availability.getReadinessState());
+
+        assertFalse(recorder.warmupCompleteWhenAccepting.isEmpty());
+        assertFalse(recorder.warmupCompleteWhenAccepting.contains(Boolean.FALSE),
+                "readiness reported ACCEPTING_TRAFFIC before warm-up completed");
+        assertTrue(recorder.refusedDuringWarmup,
+                "readiness was not REFUSING_TRAFFIC while warm-up ran");
+    }
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        ReadinessRecorder readinessRecorder(WarmupRunner warmupRunner) {
+            return new ReadinessRecorder(warmupRunner);
+        }
+    }
+
+    static class ReadinessRecorder {
+        private final WarmupRunner warmupRunner;
+        final List<Boolean> warmupCompleteWhenAccepting = new CopyOnWriteArrayList<>();
+        volatile boolean refusedDuringWarmup;
+
+        ReadinessRecorder(WarmupRunner warmupRunner) {
+            this.warmupRunner = warmupRunner;
+        }
+
+        @EventListener
+        public void onReadiness(AvailabilityChangeEvent<ReadinessState> event) {
+            if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC) {
+                warmupCompleteWhenAccepting.add(warmupRunner.isComplete());
+            } else if (!warmupRunner.isComplete()) {
+                refusedDuringWarmup = true;
+            }
+        }
+    }
+}
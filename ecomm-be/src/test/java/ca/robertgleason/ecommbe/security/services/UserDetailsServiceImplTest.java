@@ -0,0 +1,90 @@
+package ca.robertgleason.ecommbe.security.services;
+
+import ca.robertgleason.ecommbe.model.AppRole;
+import ca.robertgleason.ecommbe.model.Role;
+import ca.robertgleason.ecommbe.model.User;
+import ca.robertgleason.ecommbe.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserDetailsServiceImplTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserDetailsServiceImpl userDetailsService = new UserDetailsServiceImpl(userRepository);
+
+    @Test
+    void everyMaskMapsToTheAuthoritiesOfItsBits() {
+        for (int mask = 0; mask < 1 << AppRole.values().length; mask++) {
+            UserDetails details = load(userWithMask(mask));
+
+            List<String> expected = AppRole.fromMask(mask).stream().map(AppRole::name).toList();
+            assertEquals(expected, authorities(details), "mask " + mask);
+        }
+    }
+
+    @Test
+    void usersWithTheSameMaskShareOneAuthorityList() {
+        UserDetails first = load(userWithMask(AppRole.toMask(EnumSet.of(AppRole.ROLE_USER, AppRole.ROLE_ADMIN))));
+        UserDetails second = load(userWithMask(AppRole.toMask(EnumSet.of(AppRole.ROLE_ADMIN, AppRole.ROLE_USER))));
+
+        assertSame(first.getAuthorities(), second.getAuthorities());
+    }
+
+    /**
+     * The join table is left null here, so touching it in bitmask mode would fail the test.
+     */
+    @Test
+    void bitmaskStorageNeverReadsTheRoleTable() {
+        User user = userWithMask(AppRole.ROLE_SELLER.mask());
+        ReflectionTestUtils.setField(user, "roles", null);
+
+        assertEquals(List.of("ROLE_SELLER"), authorities(load(user)));
+    }
+
+    @Test
+    void joinTableStorageReadsTheRoleTable() {
+        ReflectionTestUtils.setField(userDetailsService, "rolesStorage", "join-table");
+        User user = userWithMask(0);
+        user.setRoles(Set.of(new Role(AppRole.ROLE_USER), new Role(AppRole.ROLE_ADMIN)));
+        user.setRolesMask(0);
+
+        assertEquals(List.of("ROLE_USER", "ROLE_ADMIN"), authorities(load(user)));
+    }
+
+    @Test
+    void unknownUserIsRejected() {
+        when(userRepository.findByUsername("ghost")).thenReturn(Optional.empty());
+
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("ghost"));
+    }
+
+    private UserDetails load(User user) {
+        when(userRepository.findByUsername(user.getUsername())).thenReturn(Optional.of(user));
+        return userDetailsService.loadUserByUsername(user.getUsername());
+    }
+
+    private static User userWithMask(int mask) {
+        User user = new User("mask" + mask, "mask" + mask + "@example.com", "secret");
+        user.setUserId((long) mask + 1);
+        user.setRolesMask(mask);
+        return user;
+    }
+
+    private static List<String> authorities(UserDetails details) {
+        return details.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList();
+    }
+}
@@ -0,0 +1,134 @@
+package ca.robertgleason.ecommbe.service;
+
+import ca.robertgleason.ecommbe.ApiTestSupport;
+import ca.robertgleason.ecommbe.payload.AddressDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AddressServiceTest extends ApiTestSupport {
+
+    @Autowired
+    private AddressService addressService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void sameAddressInAnyFormattingIsStoredOnceAndLinkedOncePerUser() {
+        String street = "Dedup street " + System.nanoTime();
+        Long user = userId("user1");
+        Long seller = userId("seller1");
+
+        AddressDTO first = addressService.addAddress(user, address(street, "Tower One", "Toronto", "on", "Canada", "m5v 2t6"));
+        AddressDTO again = addressService.addAddress(user, address(street, "Tower One", "Toronto", "ON", "Canada", "M5V2T6"));
+        AddressDTO other = addressService.addAddress(seller,
+                address("  " + street.toUpperCase() + " ", "tower   one", "TORONTO", "on", "canada", "M5V 2T6"));
+
+        assertEquals(first.getAddressId(), again.getAddressId());
+        assertEquals(first.getAddressId(), other.getAddressId());
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from addresses where address_id = ?",
+                Integer.class, first.getAddressId()));
+        assertEquals(1, links(user, first.getAddressId()));
+        assertEquals(1, links(seller, first.getAddressId()));
+    }
+
+    @Test
+    void addressBookListsOnlyTheUsersAddressesInStoredForm() {
+        String street = "Book street " + System.nanoTime();
+        Long user = userId("user1");
+        AddressDTO home = addressService.addAddress(user, address(street, "Home  block", "Ottawa", "on", "Canada", "k1a 0b1"));
+        AddressDTO work = addressService.addAddress(user, address(street, "Work block", "Ottawa", "on", "Canada", "k1a 0b1"));
+        addressService.addAddress(userId("seller1"), address(street, "Someone else", "Ottawa", "on", "Canada", "k1a 0b1"));
+
+        List<AddressDTO> book = addressService.getUserAddresses(user).stream()
+                .filter(address -> address.getStreet().equals(street))
+                .toList();
+        assertEquals(List.of(home.getAddressId(), work.getAddressId()), book.stream().map(AddressDTO::getAddressId).toList());
+        AddressDTO listed = book.get(0);
+        assertEquals("Home block", listed.getBuildingName());
+        assertEquals("ON", listed.getState());
+        assertEquals("K1A0B1", listed.getZipCode());
+
+        addressService.removeAddress(user, home.getAddressId());
+        assertEquals(List.of(work.getAddressId()), addressService.getUserAddresses(user).stream()
+                .filter(address -> address.getStreet().equals(street))
+                .map(AddressDTO::getAddressId)
+                .toList());
+    }
+
+    /**
+     * The second request blocks on the first one's uncommitted address row and then hits the unique
+     * hash; it must fall back to that row instead of failing.
+     */
+    @Test
+    void concurrentFirstAddsOfOneAddressShareTheRow() throws Exception {
+        String street = "Race street " + System.nanoTime();
+        Long user = userId("user1");
+        Long seller = userId("seller1");
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        CountDownLatch firstInserted = new CountDownLatch(1);
+
+        CompletableFuture<AddressDTO> first = CompletableFuture.supplyAsync(() -> transaction.execute(status -> {
+            AddressDTO added = addressService.addAddress(user, address(street, "Race block", "Halifax", "ns", "Canada", "b3h 1a1"));
+            firstInserted.countDown();
+            // hold the uncommitted row while the second request runs into it
+            sleep(300);
+            return added;
+        }));
+        firstInserted.await(5, TimeUnit.SECONDS);
+        CompletableFuture<AddressDTO> second = CompletableFuture.supplyAsync(() ->
+                addressService.addAddress(seller, address(street, "Race block", "Halifax", "NS", "Canada", "B3H1A1")));
+
+        Long addressId = first.get(10, TimeUnit.SECONDS).getAddressId();
+        assertEquals(addressId, second.get(10, TimeUnit.SECONDS).getAddressId());
+        assertEquals(1, links(user, addressId));
+        assertEquals(1, links(seller, addressId));
+    }
+
+    @Test
+    void linkTableRejectsDuplicateLinks() {
+        Long user = userId("user1");
+        AddressDTO added = addressService.addAddress(user,
+                address("Link street " + System.nanoTime(), "Link block", "Regina", "sk", "Canada", "s4p 3y2"));
+
+        assertThrows(DuplicateKeyException.class, () -> jdbcTemplate.update(
+                "insert into user_addresses (user_id, address_id) values (?, ?)", user, added.getAddressId()));
+    }
+
+    private Long userId(String username) {
+        return jdbcTemplate.queryForObject("select user_id from users where username = ?", Long.class, username);
+    }
+
+    private int links(Long userId, Long addressId) {
+        return jdbcTemplate.queryForObject("select count(*) from user_addresses where user_id = ? and address_id = ?",
+                Integer.class, userId, addressId);
+    }
+
+    private static AddressDTO address(String street, String buildingName, String city, String state, String country,
+                                      String zipCode) {
+        return new AddressDTO(null, street, buildingName, city, state, country, zipCode);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
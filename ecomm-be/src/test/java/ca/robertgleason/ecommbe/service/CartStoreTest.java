@@ -0,0 +1,161 @@
+package ca.robertgleason.ecommbe.service;
+
+import ca.robertgleason.ecommbe.ApiTestSupport;
+import ca.robertgleason.ecommbe.payload.CartDTO;
+import ca.robertgleason.ecommbe.payload.CartItemDTO;
+import ca.robertgleason.ecommbe.payload.ProductDTO;
+import ca.robertgleason.ecommbe.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs a CartStore of its own against the shared database, with idle eviction at zero so every
+ * flush evicts whatever it has persisted. User ids are far above the seeded ones and unique per
+ * test, and cart rows have no foreign keys.
+ */
+class CartStoreTest extends ApiTestSupport {
+
+    private static final AtomicLong NEXT_USER = new AtomicLong(900_000);
+    private static final long PRODUCT_ID = 1;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+
+    /**
+     * Few stripes, so users share them, while a background loop keeps flushing and evicting: every
+     * add that lands on an evicted cart has to restore it, and none may be lost or applied twice.
+     */
+    @Test
+    void concurrentAddsSurviveContinuousEvictionAndRestore() throws Exception {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        CartStore store = store(jdbcTemplate, 2);
+        CartService carts = cartService(store);
+        long firstUser = NEXT_USER.getAndAdd(6);
+        int users = 6;
+        int addsPerUser = 200;
+
+        AtomicBoolean adding = new AtomicBoolean(true);
+        CompletableFuture<Void> flusher = CompletableFuture.runAsync(() -> {
+            while (adding.get()) {
+                store.flush();
+            }
+        });
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            List<CompletableFuture<CartDTO>> adds = new ArrayList<>();
+            for (int i = 0; i < addsPerUser; i++) {
+                for (long user = firstUser; user < firstUser + users; user++) {
+                    Long userId = user;
+                    adds.add(CompletableFuture.supplyAsync(() -> carts.addProduct(userId, PRODUCT_ID, 1), executor));
+                }
+            }
+            CompletableFuture.allOf(adds.toArray(CompletableFuture[]::new)).get(60, TimeUnit.SECONDS);
+        } finally {
+            adding.set(false);
+            flusher.get(10, TimeUnit.SECONDS);
+        }
+        store.flush();
+
+        for (long user = firstUser; user < firstUser + users; user++) {
+            assertEquals(addsPerUser, persistedQuantity(jdbcTemplate, user), "persisted cart of user " + user);
+            assertEquals(addsPerUser, quantity(carts.getCart(user)), "resident cart of user " + user);
+        }
+    }
+
+    /**
+     * A restore reads the database without the stripe held. If the cart is changed, flushed and
+     * evicted in that window, what the restore read is stale and must not be installed.
+     */
+    @Test
+    void restoreThatRacesAnEvictionReadsAgain() throws Exception {
+        CountDownLatch restoreRead = new CountDownLatch(1);
+        CountDownLatch evicted = new CountDownLatch(1);
+        AtomicBoolean pauseNextRestore = new AtomicBoolean();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource) {
+            @Override
+            public void query(String sql, RowCallbackHandler rch, Object... args) {
+                super.query(sql, rch, args);
+                if (pauseNextRestore.compareAndSet(true, false)) {
+                    restoreRead.countDown();
+                    await(evicted);
+                }
+            }
+        };
+        CartStore store = store(jdbcTemplate, 1);
+        CartService carts = cartService(store);
+        Long userId = NEXT_USER.getAndIncrement();
+
+        carts.addProduct(userId, PRODUCT_ID, 1);
+        store.flush();
+
+        // this read restores quantity 1 and then stalls before taking the stripe again
+        pauseNextRestore.set(true);
+        CompletableFuture<CartDTO> staleRead = CompletableFuture.supplyAsync(() -> carts.getCart(userId));
+        assertTrue(restoreRead.await(5, TimeUnit.SECONDS));
+
+        carts.addProduct(userId, PRODUCT_ID, 1);
+        store.flush();
+        evicted.countDown();
+
+        assertEquals(2, quantity(staleRead.get(10, TimeUnit.SECONDS)));
+        assertEquals(2, quantity(carts.getCart(userId)));
+        assertEquals(2, persistedQuantity(jdbcTemplate, userId));
+    }
+
+    private CartStore store(JdbcTemplate jdbcTemplate, int stripes) {
+        CartStore store = new CartStore(jdbcTemplate, transactionManager, new SimpleMeterRegistry(), stripes);
+        ReflectionTestUtils.setField(store, "idleEviction", Duration.ZERO);
+        ReflectionTestUtils.setField(store, "maxResident", 100_000);
+        return store;
+    }
+
+    private CartService cartService(CartStore store) {
+        when(productRepository.findProductDTOsByIds(any())).thenReturn(
+                List.of(new ProductDTO(PRODUCT_ID, "Stress product", "default.png", 1_000_000, 10.0, 0.0, 10.0)));
+        return new CartServiceImpl(store, productRepository);
+    }
+
+    private static int quantity(CartDTO cart) {
+        return cart.getItems().stream().mapToInt(CartItemDTO::getQuantity).sum();
+    }
+
+    private static int persistedQuantity(JdbcTemplate jdbcTemplate, Long userId) {
+        return jdbcTemplate.queryForObject("select coalesce(sum(quantity), 0) from cart_items where user_id = ?",
+                Integer.class, userId);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package ca.robertgleason.ecommbe.service;
+
+import ca.robertgleason.ecommbe.excepetions.ResourceNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FileServiceImplTest {
+
+    @TempDir
+    Path root;
+
+    private final ImageCache imageCache = new ImageCache(1 << 20, 1 << 16, new SimpleMeterRegistry());
+    private final FileServiceImpl fileService = new FileServiceImpl(imageCache, 1 << 16);
+
+    @Test
+    void aliasesOfOneFileShareOneCacheEntry() throws IOException {
+        write("3f/a2/x.png", "original");
+
+        assertEquals("original", read("3f/a2/x.png"));
+        assertEquals("original", read("3f/./a2/x.png"));
+        assertEquals("original", read("3f//a2/x.png"));
+        assertEquals("original", read("3f/b0/../a2/x.png"));
+        assertEquals(1, imageCache.size());
+    }
+
+    @Test
+    void invalidatingTheCanonicalNameDropsWhatAnAliasCached() throws IOException {
+        write("3f/a2/x.png", "original");
+        read("3f/./a2/x.png");
+
+        write("3f/a2/x.png", "replaced");
+        imageCache.invalidate("3f/a2/x.png");
+
+        assertEquals("replaced", read("3f/./a2/x.png"));
+    }
+
+    @Test
+    void pathsOutsideTheRootAreNotFoundAndNotCached() {
+        assertThrows(ResourceNotFoundException.class, () -> read("../outside.png"));
+        assertEquals(0, imageCache.size());
+    }
+
+    private void write(String name, String content) throws IOException {
+        Path file = root.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+
+    private String read(String name) throws IOException {
+        ByteBuffer buffer = fileService.readImage(root.toString(), name).duplicate();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return new String(bytes);
+    }
+}
@@ -0,0 +1,73 @@
+package ca.robertgleason.ecommbe.service;
+
+import ca.robertgleason.ecommbe.ApiTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Uploads through the embedded container, so the multipart part is really spooled to disk and
+ * moved by {@code Part.write}, with a relative image root like the default {@code images/}.
+ */
+class ImageUploadTest extends ApiTestSupport {
+
+    @Test
+    void uploadLandsUnderShardedPathOfRelativeImageRoot() throws IOException {
+        String cookie = signIn("admin", "adminPass");
+        Number categoryId = (Number) post("/api/public/categories", Map.of("categoryName", "Uploads"), cookie).get("categoryId");
+        Number productId = (Number) post("/api/admin/categories/" + categoryId + "/product",
+                Map.of("productName", "Upload target", "quantity", 5, "price", 10.0, "discount", 0), cookie).get("productId");
+
+        byte[] png = png();
+        MultiValueMap<String, Object> form = new LinkedMultiValueMap<>();
+        form.add("image", new ByteArrayResource(png) {
+            @Override
+            public String getFilename() {
+                return "upload.png";
+            }
+        });
+        HttpHeaders headers = headers(cookie);
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        ResponseEntity<Map> response = restTemplate.exchange("/api/products/" + productId + "/image", HttpMethod.PUT,
+                new HttpEntity<>(form, headers), Map.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        String image = (String) response.getBody().get("image");
+        assertNotNull(image);
+        assertTrue(image.matches("[0-9a-f]{2}/[0-9a-f]{2}/[^/]+\\.png"), image);
+        Path stored = Path.of("target/upload-test-images").resolve(image);
+        assertTrue(Files.isRegularFile(stored), "upload not found at " + stored.toAbsolutePath());
+        assertArrayEquals(png, Files.readAllBytes(stored));
+
+        ResponseEntity<byte[]> served = restTemplate.getForEntity("/images/" + image, byte[].class);
+        assertEquals(HttpStatus.OK, served.getStatusCode());
+        assertArrayEquals(png, served.getBody());
+    }
+
+    private static byte[] png() throws IOException {
+        BufferedImage image = new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,67 @@
+package ca.robertgleason.ecommbe.service;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ImageVariantServiceImplTest {
+
+    @TempDir
+    Path root;
+
+    private final ListAppender<ILoggingEvent> logged = new ListAppender<>();
+    private ImageVariantServiceImpl variants;
+
+    @BeforeEach
+    void setUp() {
+        logged.start();
+        ((Logger) LoggerFactory.getLogger(ImageVariantServiceImpl.class)).addAppender(logged);
+        // a missing answer is rechecked on every listing, so only a failed state stops the retries
+        variants = new ImageVariantServiceImpl(root.toString(), 1, 10, 100, 0, 40_000_000,
+                new ImageCache(1 << 20, 1 << 16, new SimpleMeterRegistry()), new CatalogVersion());
+    }
+
+    @AfterEach
+    void tearDown() {
+        variants.shutdown();
+        ((Logger) LoggerFactory.getLogger(ImageVariantServiceImpl.class)).detachAppender(logged);
+    }
+
+    @Test
+    void formatWithoutWriterIsNotRetried() throws Exception {
+        // PNG content is readable, but there is no writer for the extension it is stored under
+        ImageIO.write(new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB), "png", root.resolve("x.nowriter").toFile());
+
+        variants.generateVariantsAsync("x.nowriter");
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (noWriterWarnings() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        for (int i = 0; i < 3; i++) {
+            Map<String, String> resolved = variants.resolveVariants("x.nowriter");
+            resolved.values().forEach(name -> assertEquals("x.nowriter", name));
+            Thread.sleep(200);
+        }
+
+        assertEquals(1, noWriterWarnings());
+    }
+
+    private long noWriterWarnings() {
+        return logged.list.stream()
+                .filter(event -> event.getFormattedMessage().startsWith("No ImageIO writer"))
+                .count();
+    }
+}
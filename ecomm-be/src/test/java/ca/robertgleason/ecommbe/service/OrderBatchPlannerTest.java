@@ -0,0 +1,60 @@
+package ca.robertgleason.ecommbe.service;
+
+import ca.robertgleason.ecommbe.service.OrderBatchPlanner.Allocation;
+import ca.robertgleason.ecommbe.service.OrderBatchPlanner.Line;
+import ca.robertgleason.ecommbe.service.OrderBatchPlanner.Plan;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderBatchPlannerTest {
+
+    @Test
+    void partialStockAcceptsWhatFitsAndRejectsTheRest() {
+        Plan plan = OrderBatchPlanner.plan(
+                List.of(List.of(new Line(1L, 2), new Line(2L, 5), new Line(3L, 1))),
+                Map.of(1L, 10, 2L, 4));
+
+        Allocation allocation = plan.allocations().get(0);
+        assertEquals(List.of(new Line(1L, 2)), allocation.accepted());
+        // 2 has too little stock, 3 is unknown (deleted or never locked)
+        assertEquals(List.of(new Line(2L, 5), new Line(3L, 1)), allocation.rejected());
+        assertEquals(Map.of(1L, 2), plan.decrements());
+    }
+
+    @Test
+    void sharedProductIsAllocatedInArrivalOrderAndDecrementedOnce() {
+        Plan plan = OrderBatchPlanner.plan(List.of(
+                        List.of(new Line(7L, 3)),
+                        List.of(new Line(7L, 2), new Line(5L, 1)),
+                        List.of(new Line(7L, 1))),
+                Map.of(5L, 1, 7L, 5));
+
+        assertEquals(List.of(new Line(7L, 3)), plan.allocations().get(0).accepted());
+        assertEquals(List.of(new Line(7L, 2), new Line(5L, 1)), plan.allocations().get(1).accepted());
+        // the first two orders used up product 7
+        assertEquals(List.of(new Line(7L, 1)), plan.allocations().get(2).rejected());
+        assertEquals(Map.of(5L, 1, 7L, 5), plan.decrements());
+        // one combined decrement per product, in id order, so batches lock rows in the same order
+        assertEquals(List.of(5L, 7L), List.copyOf(plan.decrements().keySet()));
+    }
+
+    @Test
+    void rejectedOnlyOrderContributesNoDecrements() {
+        Plan plan = OrderBatchPlanner.plan(List.of(
+                        List.of(new Line(1L, 4), new Line(2L, 0)),
+                        List.of(new Line(1L, 3))),
+                Map.of(1L, 3, 2L, 10));
+
+        Allocation rejectedOnly = plan.allocations().get(0);
+        assertTrue(rejectedOnly.accepted().isEmpty());
+        assertEquals(List.of(new Line(1L, 4), new Line(2L, 0)), rejectedOnly.rejected());
+        // the rejected order reserved nothing, so the next one still gets the stock
+        assertEquals(List.of(new Line(1L, 3)), plan.allocations().get(1).accepted());
+        assertEquals(Map.of(1L, 3), plan.decrements());
+    }
+}
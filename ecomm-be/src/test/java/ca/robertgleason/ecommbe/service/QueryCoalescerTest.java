@@ -0,0 +1,176 @@
+package ca.robertgleason.ecommbe.service;
+
+import ca.robertgleason.ecommbe.excepetions.APIException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryCoalescerTest {
+
+    private static final int FOLLOWERS = 8;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final QueryCoalescer coalescer = new QueryCoalescer(meterRegistry);
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(coalescer, "enabled", true);
+        ReflectionTestUtils.setField(coalescer, "waitTimeout", Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void overlappingCallsForOneKeyLoadOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> leader = call("1:0:10", blockingLoad(release, "page"));
+        List<CompletableFuture<String>> followers = joinFollowers("1:0:10", FOLLOWERS);
+
+        release.countDown();
+        String result = leader.get(5, TimeUnit.SECONDS);
+        for (CompletableFuture<String> follower : followers) {
+            assertSame(result, follower.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+
+        // the flight is forgotten once it completes, so a later call reads again
+        assertEquals("page", coalescer.execute("products.all", "1:0:10", load("page")));
+        assertEquals(2, loads.get());
+    }
+
+    /**
+     * Callers key by catalog version, so a read that starts after a write must not join a flight
+     * that may have read the data before it.
+     */
+    @Test
+    void newCatalogVersionDoesNotJoinAnOlderFlight() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> stale = call("1:0:10", blockingLoad(release, "before write"));
+        awaitCalls("leader", 1);
+
+        assertEquals("after write", coalescer.execute("products.all", "2:0:10", load("after write")));
+        assertEquals(2, loads.get());
+
+        release.countDown();
+        assertEquals("before write", stale.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void followerThatTimesOutRunsTheLoaderItself() throws Exception {
+        ReflectionTestUtils.setField(coalescer, "waitTimeout", Duration.ofMillis(50));
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> leader = call("1:0:10", blockingLoad(release, "slow"));
+        awaitCalls("leader", 1);
+
+        assertEquals("own", coalescer.execute("products.all", "1:0:10", load("own")));
+        assertEquals(1, count("timeout"));
+        assertEquals(2, loads.get());
+
+        release.countDown();
+        assertEquals("slow", leader.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void leaderFailureReachesEveryWaiter() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        APIException failure = new APIException("No products found");
+        CompletableFuture<String> leader = call("1:9:10", () -> {
+            loads.incrementAndGet();
+            await(release);
+            throw failure;
+        });
+        List<CompletableFuture<String>> followers = joinFollowers("1:9:10", FOLLOWERS);
+
+        release.countDown();
+        for (CompletableFuture<String> waiter : concat(leader, followers)) {
+            CompletionException thrown = assertThrows(CompletionException.class, () -> waiter.join());
+            assertSame(failure, thrown.getCause());
+        }
+        assertEquals(1, loads.get());
+
+        // a failed flight is not cached either
+        assertEquals("recovered", coalescer.execute("products.all", "1:9:10", load("recovered")));
+        assertEquals(2, loads.get());
+    }
+
+    private List<CompletableFuture<String>> joinFollowers(String key, int count) throws InterruptedException {
+        awaitCalls("leader", 1);
+        List<CompletableFuture<String>> followers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            followers.add(call(key, load("follower " + i)));
+        }
+        awaitCalls("joined", count);
+        return followers;
+    }
+
+    private CompletableFuture<String> call(String key, Supplier<String> loader) {
+        return CompletableFuture.supplyAsync(() -> coalescer.execute("products.all", key, loader), executor);
+    }
+
+    private Supplier<String> load(String result) {
+        return () -> {
+            loads.incrementAndGet();
+            return result;
+        };
+    }
+
+    private Supplier<String> blockingLoad(CountDownLatch release, String result) {
+        return () -> {
+            loads.incrementAndGet();
+            await(release);
+            return result;
+        };
+    }
+
+    private void awaitCalls(String outcome, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count(outcome) < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(count(outcome) >= expected, outcome + " calls: " + count(outcome));
+    }
+
+    private long count(String outcome) {
+        var counter = meterRegistry.find("catalog.coalescer.calls").tag("outcome", outcome).counter();
+        return counter == null ? 0 : (long) counter.count();
+    }
+
+    private static List<CompletableFuture<String>> concat(CompletableFuture<String> first, List<CompletableFuture<String>> rest) {
+        List<CompletableFuture<String>> all = new ArrayList<>(rest.size() + 1);
+        all.add(first);
+        all.addAll(rest);
+        return all;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
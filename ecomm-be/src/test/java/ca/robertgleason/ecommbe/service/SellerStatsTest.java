@@ -0,0 +1,90 @@
+package ca.robertgleason.ecommbe.service;
+
+import ca.robertgleason.ecommbe.ApiTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * A seller's first product creates their {@code seller_stats} row inside the product's own
+ * transaction, through the embedded container and the JPA transaction manager it really runs under.
+ */
+class SellerStatsTest extends ApiTestSupport {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SellerStatsStore sellerStatsStore;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void firstProductOfSellerWithoutStatsRowCreatesIt() {
+        String cookie = signIn("seller1", "password2");
+        Long sellerId = jdbcTemplate.queryForObject("select user_id from users where username = ?", Long.class, "seller1");
+        jdbcTemplate.update("delete from seller_stats where seller_id = ?", sellerId);
+
+        Number categoryId = (Number) post("/api/public/categories", Map.of("categoryName", "Seller stats"), cookie).get("categoryId");
+        post("/api/admin/categories/" + categoryId + "/product",
+                Map.of("productName", "First seller product", "quantity", 4, "price", 10.0, "discount", 0), cookie);
+
+        ResponseEntity<Map> stats = restTemplate.exchange("/api/seller/stats", HttpMethod.GET,
+                new HttpEntity<>(headers(cookie)), Map.class);
+        assertEquals(HttpStatus.OK, stats.getStatusCode());
+        assertEquals(1, ((Number) stats.getBody().get("productCount")).intValue());
+        assertEquals(4, ((Number) stats.getBody().get("totalStock")).intValue());
+        assertEquals(40.0, ((Number) stats.getBody().get("inventoryValue")).doubleValue(), 0.001);
+    }
+
+    /**
+     * The second first write blocks on the first one's uncommitted row and then finds the key
+     * taken; it must add onto that row instead of failing its caller's transaction.
+     */
+    @Test
+    void concurrentFirstWritesOfOneSellerBothCount() throws Exception {
+        long sellerId = 900_000 + System.nanoTime() % 100_000;
+        SellerStatsStore.Contribution product = new SellerStatsStore.Contribution(1, 3, 30.0);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        CountDownLatch firstInserted = new CountDownLatch(1);
+
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> transaction.executeWithoutResult(status -> {
+            sellerStatsStore.apply(sellerId, product);
+            firstInserted.countDown();
+            // hold the uncommitted row while the second writer runs into it
+            sleep(300);
+        }));
+        firstInserted.await(5, TimeUnit.SECONDS);
+        CompletableFuture<Void> second = CompletableFuture.runAsync(() ->
+                transaction.executeWithoutResult(status -> sellerStatsStore.apply(sellerId, product)));
+
+        first.get(10, TimeUnit.SECONDS);
+        second.get(10, TimeUnit.SECONDS);
+        assertEquals(2, jdbcTemplate.queryForObject("select product_count from seller_stats where seller_id = ?",
+                Long.class, sellerId));
+        assertEquals(6, jdbcTemplate.queryForObject("select total_stock from seller_stats where seller_id = ?",
+                Long.class, sellerId));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
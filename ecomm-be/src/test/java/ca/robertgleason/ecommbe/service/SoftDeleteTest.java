@@ -0,0 +1,199 @@
+package ca.robertgleason.ecommbe.service;
+
+import ca.robertgleason.ecommbe.ApiTestSupport;
+import ca.robertgleason.ecommbe.repository.CategoryRepository;
+import ca.robertgleason.ecommbe.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Deletes only set {@code deleted_at}; {@code @SQLRestriction} hides the rows from every read, and
+ * {@link CatalogPurger} removes them after the retention period.
+ */
+class SoftDeleteTest extends ApiTestSupport {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private String cookie;
+
+    @BeforeEach
+    void signInSeller() {
+        cookie = signIn("seller1", "password2");
+    }
+
+    @Test
+    void deletedProductIsHiddenFromListingsAndCaches() {
+        Long categoryId = category("Soft delete listing");
+        Long kept = product(categoryId, "Kept product");
+        Long deleted = product(categoryId, "Deleted product");
+
+        // warm the response cache, the query cache and the second-level entity cache
+        assertEquals(List.of(kept, deleted), listedIds(categoryId));
+        assertEquals(List.of(kept, deleted), batchIds(kept, deleted));
+        assertTrue(productRepository.findById(deleted).isPresent());
+
+        ResponseEntity<Map> response = restTemplate.exchange("/api/admin/products/" + deleted, HttpMethod.DELETE,
+                new HttpEntity<>(headers(cookie)), Map.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        assertEquals(List.of(kept), listedIds(categoryId));
+        assertEquals(List.of(kept), batchIds(kept, deleted));
+        assertFalse(productRepository.findById(deleted).isPresent());
+        // the row stays until the purger removes it
+        assertNotNull(deletedAt("products", "product_id", deleted));
+    }
+
+    @Test
+    void deletingACategoryMarksItsProductsInTheSameTransaction() {
+        Long categoryId = category("Soft delete category");
+        Long first = product(categoryId, "Category product one");
+        Long second = product(categoryId, "Category product two");
+
+        // the enclosing transaction rolls back, so nothing the delete marked may survive
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            categoryService.deleteCategory(categoryId);
+            assertNotNull(deletedAt("categories", "category_id", categoryId));
+            assertNotNull(deletedAt("products", "product_id", first));
+            status.setRollbackOnly();
+        });
+        assertNull(deletedAt("categories", "category_id", categoryId));
+        assertNull(deletedAt("products", "product_id", first));
+        assertNull(deletedAt("products", "product_id", second));
+
+        categoryService.deleteCategory(categoryId);
+        assertNotNull(deletedAt("categories", "category_id", categoryId));
+        assertNotNull(deletedAt("products", "product_id", first));
+        assertNotNull(deletedAt("products", "product_id", second));
+        assertFalse(categoryRepository.findById(categoryId).isPresent());
+        assertFalse(productRepository.findById(first).isPresent());
+    }
+
+    /**
+     * Backdated rows are younger than the application's own purger retention, so only the purger
+     * built here, with a one-minute retention, ever removes them.
+     */
+    @Test
+    void purgerRemovesOnlyRowsPastRetentionInBoundedBatches() {
+        Long categoryId = category("Soft delete purge");
+        List<Long> expired = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            expired.add(product(categoryId, "Expired product " + i));
+        }
+        Long recent = product(categoryId, "Recently deleted product");
+        Long live = product(categoryId, "Live product");
+        Timestamp backdated = Timestamp.from(Instant.now().minus(Duration.ofMinutes(10)));
+        expired.forEach(id -> jdbcTemplate.update("update products set deleted_at = ? where product_id = ?", backdated, id));
+        jdbcTemplate.update("update products set deleted_at = ? where product_id = ?", Timestamp.from(Instant.now()), recent);
+        jdbcTemplate.update("update categories set deleted_at = ? where category_id = ?", backdated, categoryId);
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CatalogPurger purger = new CatalogPurger(jdbcTemplate, transactionManager, meterRegistry);
+        ReflectionTestUtils.setField(purger, "enabled", true);
+        ReflectionTestUtils.setField(purger, "retention", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(purger, "batchSize", 2);
+        ReflectionTestUtils.setField(purger, "maxBatchesPerRun", 2);
+
+        // two batches of two, then the run stops and leaves the rest to the next one
+        purger.purge();
+        assertEquals(4, meterRegistry.counter("catalog.purge.products").count());
+        assertEquals(1, remaining(expired));
+        assertTrue(exists("products", "product_id", recent));
+        assertTrue(exists("products", "product_id", live));
+
+        purger.purge();
+        assertEquals(0, remaining(expired));
+        assertTrue(exists("products", "product_id", recent));
+        assertTrue(exists("products", "product_id", live));
+        // still has products, so the deleted category stays until they are gone
+        assertTrue(exists("categories", "category_id", categoryId));
+
+        jdbcTemplate.update("delete from products where product_id in (?, ?)", recent, live);
+        purger.purge();
+        assertFalse(exists("categories", "category_id", categoryId));
+    }
+
+    private Long category(String name) {
+        return ((Number) post("/api/public/categories", Map.of("categoryName", name + " " + System.nanoTime()), cookie)
+                .get("categoryId")).longValue();
+    }
+
+    private Long product(Long categoryId, String name) {
+        return ((Number) post("/api/admin/categories/" + categoryId + "/product",
+                Map.of("productName", name, "quantity", 5, "price", 10.0, "discount", 0), cookie)
+                .get("productId")).longValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> listedIds(Long categoryId) {
+        ResponseEntity<Map> response = restTemplate.exchange("/api/public/categories/" + categoryId
+                + "/products?sortBy=productId&sortOrder=asc", HttpMethod.GET, new HttpEntity<>(headers(cookie)), Map.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return ((List<Map<String, Object>>) response.getBody().get("content")).stream()
+                .map(product -> ((Number) product.get("productId")).longValue())
+                .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> batchIds(Long... ids) {
+        StringBuilder query = new StringBuilder();
+        for (Long id : ids) {
+            query.append(query.isEmpty() ? "" : ",").append(id);
+        }
+        ResponseEntity<Map> response = restTemplate.exchange("/api/public/products/batch?ids=" + query,
+                HttpMethod.GET, new HttpEntity<>(headers(cookie)), Map.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return ((List<Map<String, Object>>) response.getBody().get("content")).stream()
+                .map(product -> ((Number) product.get("productId")).longValue())
+                .toList();
+    }
+
+    private Timestamp deletedAt(String table, String idColumn, Long id) {
+        return jdbcTemplate.queryForObject("select deleted_at from " + table + " where " + idColumn + " = ?",
+                Timestamp.class, id);
+    }
+
+    private boolean exists(String table, String idColumn, Long id) {
+        return jdbcTemplate.queryForObject("select count(*) from " + table + " where " + idColumn + " = ?",
+                Integer.class, id) == 1;
+    }
+
+    private int remaining(List<Long> ids) {
+        return (int) ids.stream().filter(id -> exists("products", "product_id", id)).count();
+    }
+}